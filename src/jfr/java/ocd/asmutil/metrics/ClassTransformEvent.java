@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("ocd.asmutil.ClassTransform")
+@Label("Class Transformation")
+@Category({"ASMUtils", "Transformation"})
+@StackTrace(false)
+class ClassTransformEvent extends Event
+{
+	@Label("Class")
+	String className;
+
+	@Label("Transformers")
+	String transformers;
+
+	@Label("Modified")
+	boolean modified;
+
+	@Label("Verified")
+	boolean verified;
+
+	static boolean enabled()
+	{
+		return EventHolder.TYPE.isEnabled();
+	}
+
+	static Object begin(final String className)
+	{
+		final ClassTransformEvent event = new ClassTransformEvent();
+		event.className = className;
+		event.begin();
+
+		return event;
+	}
+
+	static void commit(final Object obj, final String transformers, final boolean modified, final boolean verified)
+	{
+		final ClassTransformEvent event = (ClassTransformEvent) obj;
+		event.end();
+		event.transformers = transformers;
+		event.modified = modified;
+		event.verified = verified;
+		event.commit();
+	}
+
+	private static class EventHolder
+	{
+		static final jdk.jfr.EventType TYPE = jdk.jfr.EventType.getEventType(ClassTransformEvent.class);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.metrics;
+
+class JfrEventSink implements EventSink
+{
+	@Override
+	public boolean isClassEventEnabled()
+	{
+		return ClassTransformEvent.enabled();
+	}
+
+	@Override
+	public Object beginClass(final String className)
+	{
+		return ClassTransformEvent.begin(className);
+	}
+
+	@Override
+	public void commitClass(final Object event, final String transformers, final boolean modified, final boolean verified)
+	{
+		ClassTransformEvent.commit(event, transformers, modified, verified);
+	}
+
+	@Override
+	public boolean isMethodEventEnabled()
+	{
+		return MethodTransformEvent.enabled();
+	}
+
+	@Override
+	public Object beginMethod(final String className, final String method, final String transformer)
+	{
+		return MethodTransformEvent.begin(className, method, transformer);
+	}
+
+	@Override
+	public void endMethod(final Object event)
+	{
+		MethodTransformEvent.end(event);
+	}
+
+	@Override
+	public void commitMethod(final Object event, final boolean verified)
+	{
+		MethodTransformEvent.commit(event, verified);
+	}
+}
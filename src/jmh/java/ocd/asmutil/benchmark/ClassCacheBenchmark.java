@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import ocd.asmutil.cache.ClassCache;
+import ocd.asmutil.cache.DirectoryClassCache;
+import ocd.asmutil.cache.MappedClassCache;
+
+// Warm start lookups of previously transformed classes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassCacheBenchmark
+{
+	private static final int CLASSES = 1024;
+
+	@Param({"directory", "mapped"})
+	public String store;
+
+	@Param({"MEDIUM"})
+	public SyntheticClass.Size size;
+
+	private ClassCache cache;
+	private final String[] names = new String[CLASSES];
+	private final HashCode[] keys = new HashCode[CLASSES];
+	private int next;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		final Path dir = Files.createTempDirectory("class-cache");
+
+		this.cache = this.store.equals("mapped") ? new MappedClassCache(dir.resolve("classes.bin"), 256 << 20) : new DirectoryClassCache(dir);
+
+		final byte[] classFile = SyntheticClass.generate(this.size.methods, this.size.statements, this.size.statements / 10);
+
+		for (int i = 0; i < CLASSES; ++i)
+		{
+			this.names[i] = "benchmark.Class" + i;
+			this.keys[i] = Hashing.murmur3_128().hashString(this.names[i], StandardCharsets.UTF_8);
+			this.cache.put(this.names[i], this.keys[i], classFile);
+		}
+	}
+
+	@Benchmark
+	public byte[] get() throws IOException
+	{
+		final int i = this.next++ & (CLASSES - 1);
+
+		return this.cache.get(this.names[i], this.keys[i]);
+	}
+}
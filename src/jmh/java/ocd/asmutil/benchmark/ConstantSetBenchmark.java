@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.InjectionLocator;
+import ocd.asmutil.matchers.ConstantMatcher;
+import ocd.asmutil.matchers.ConstantSetMatcher;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstantSetBenchmark
+{
+	@Param({"4", "32"})
+	public int constants;
+
+	private MethodNode methodNode;
+	private InjectionLocator chained;
+	private ConstantSetMatcher set;
+
+	@Setup
+	public void setup()
+	{
+		this.methodNode = SyntheticClass.readMethod(SyntheticClass.generate(1, 1000, 10), 0);
+
+		final Object[] constants = new Object[this.constants];
+		InjectionLocator chained = null;
+
+		for (int i = 0; i < this.constants; ++i)
+		{
+			constants[i] = "str" + i * 31;
+
+			final ConstantMatcher matcher = new ConstantMatcher(constants[i]);
+			chained = chained == null ? matcher : chained.or(matcher);
+		}
+
+		this.chained = chained;
+		this.set = new ConstantSetMatcher(constants);
+	}
+
+	private int count(final InjectionLocator locator)
+	{
+		int matches = 0;
+
+		for (AbstractInsnNode insn = this.methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+			if (locator.test(this.methodNode, insn))
+				++matches;
+
+		return matches;
+	}
+
+	@Benchmark
+	public int chained()
+	{
+		return this.count(this.chained);
+	}
+
+	@Benchmark
+	public int set()
+	{
+		return this.count(this.set);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.Interpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.frame.FrameUtil;
+import ocd.asmutil.frame.TrackingValue;
+import ocd.asmutil.frame.TrackingValue.TrackingInterpreter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeepStackBenchmark
+{
+	@Param({"16", "256", "4096"})
+	public int depth;
+
+	// Without a known maxStack the frame has to grow while simulating
+	@Param({"false", "true"})
+	public boolean presized;
+
+	private MethodNode methodNode;
+
+	@Setup
+	public void setup()
+	{
+		this.methodNode = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "deep", "()I", null, null);
+
+		for (int i = 0; i < this.depth; ++i)
+			this.methodNode.instructions.add(new InsnNode(Opcodes.ICONST_1));
+
+		for (int i = 1; i < this.depth; ++i)
+			this.methodNode.instructions.add(new InsnNode(Opcodes.IADD));
+
+		this.methodNode.instructions.add(new InsnNode(Opcodes.IRETURN));
+
+		this.methodNode.maxStack = this.presized ? this.depth : 0;
+	}
+
+	@Benchmark
+	public Frame<TrackingValue> simulate() throws Exception
+	{
+		final Interpreter<TrackingValue> interpreter = new TrackingInterpreter();
+		final TrackingValue retType = interpreter.newValue(Type.INT_TYPE);
+
+		final Frame<TrackingValue> frame = FrameUtil.getFrame(null, SyntheticClass.NAME, this.methodNode, retType, interpreter);
+
+		for (AbstractInsnNode insn = this.methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+			FrameUtil.execute(insn, frame, SyntheticClass.NAME, this.methodNode, retType, interpreter);
+
+		return frame;
+	}
+}
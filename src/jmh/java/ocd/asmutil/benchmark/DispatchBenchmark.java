@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.DispatchClassTransformer;
+import ocd.asmutil.MethodTransformer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark
+{
+	private static final String NAME = SyntheticClass.NAME.replace('/', '.');
+
+	@Param({"SMALL", "MEDIUM", "HUGE"})
+	public SyntheticClass.Size size;
+
+	@Param({"false", "true"})
+	public boolean verify;
+
+	@Param({"false", "true"})
+	public boolean frozen;
+
+	private byte[] classFile;
+	private DispatchClassTransformer transformer;
+
+	@Setup
+	public void setup()
+	{
+		this.classFile = SyntheticClass.generate(this.size.methods, this.size.statements, this.size.statements / 10);
+
+		final MethodTransformer methodTransformer = new MethodTransformer();
+
+		// Only patch every fourth method, the others are copied through
+		for (int i = 0; i < this.size.methods; i += 4)
+			methodTransformer.addTransformer("method" + i, null, Transformers.lineInjector(), Transformers.initInjector());
+
+		this.transformer = new DispatchClassTransformer(LogManager.getLogger(), this.verify).addTransformer(NAME, methodTransformer);
+
+		if (this.frozen)
+			this.transformer.freeze();
+	}
+
+	@Benchmark
+	public byte[] transform()
+	{
+		return this.transformer.transform(NAME, NAME, this.classFile);
+	}
+}
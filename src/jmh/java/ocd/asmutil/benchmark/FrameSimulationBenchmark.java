@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.Interpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.frame.FrameUtil;
+import ocd.asmutil.frame.TrackingValue;
+import ocd.asmutil.frame.TrackingValue.TrackingInterpreter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameSimulationBenchmark
+{
+	@Param({"100", "2000"})
+	public int statements;
+
+	// Interned values are shared across invocations, as they are across the transformers and re-scans of a method
+	@Param({"false", "true"})
+	public boolean intern;
+
+	private MethodNode methodNode;
+	private TrackingInterpreter interpreter;
+
+	@Setup
+	public void setup()
+	{
+		this.methodNode = SyntheticClass.readMethod(SyntheticClass.generate(1, this.statements, 0), 0);
+		this.interpreter = new TrackingInterpreter(Opcodes.ASM5, true);
+	}
+
+	@Benchmark
+	public Frame<TrackingValue> simulate() throws Exception
+	{
+		final Interpreter<TrackingValue> interpreter = this.intern ? this.interpreter : new TrackingInterpreter();
+		final TrackingValue retType = interpreter.newValue(Type.getReturnType(this.methodNode.desc));
+
+		final Frame<TrackingValue> frame = FrameUtil.getFrame(null, SyntheticClass.NAME, this.methodNode, retType, interpreter);
+
+		for (AbstractInsnNode insn = this.methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+			FrameUtil.execute(insn, frame, SyntheticClass.NAME, this.methodNode, retType, interpreter);
+
+		return frame;
+	}
+}
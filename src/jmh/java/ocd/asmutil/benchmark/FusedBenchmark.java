@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.FusibleTransformer;
+import ocd.asmutil.transformers.FusedTransformer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedBenchmark
+{
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	@Param({"1", "4", "16"})
+	public int transformers;
+
+	private byte[] classFile;
+	private FusibleTransformer[] separate;
+	private FusedTransformer fused;
+
+	@Setup
+	public void setup()
+	{
+		this.classFile = SyntheticClass.generate(1, 1000, 10);
+		this.separate = new FusibleTransformer[this.transformers];
+
+		for (int i = 0; i < this.transformers; ++i)
+			this.separate[i] = i % 2 == 0 ? Transformers.lineInjector() : Transformers.initInjector();
+
+		this.fused = new FusedTransformer(this.separate);
+	}
+
+	@Benchmark
+	public MethodNode separate() throws Exception
+	{
+		MethodNode methodNode = SyntheticClass.readMethod(this.classFile, 0);
+
+		for (final FusibleTransformer transformer : this.separate)
+			methodNode = transformer.transform(SyntheticClass.NAME, methodNode, LOGGER);
+
+		return methodNode;
+	}
+
+	@Benchmark
+	public MethodNode fused() throws Exception
+	{
+		return this.fused.transform(SyntheticClass.NAME, SyntheticClass.readMethod(this.classFile, 0), LOGGER);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.matchers.InsnPattern;
+import ocd.asmutil.matchers.InsnPatternMatcher;
+import ocd.asmutil.matchers.MethodMatcher;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsnPatternBenchmark
+{
+	private static final int[] PUSH_OPCODES = {Opcodes.BIPUSH, Opcodes.SIPUSH};
+	private static final int[] STORE_OPCODES = {Opcodes.ISTORE, Opcodes.IINC, Opcodes.IMUL, Opcodes.IF_ICMPLE};
+
+	@Param({"1", "8"})
+	public int patterns;
+
+	private MethodNode methodNode;
+	private InsnPatternMatcher[] separate;
+	private InsnPatternMatcher compiled;
+
+	@Setup
+	public void setup()
+	{
+		this.methodNode = SyntheticClass.readMethod(SyntheticClass.generate(1, 1000, 10), 0);
+
+		final InsnPattern[] patterns = new InsnPattern[this.patterns];
+		this.separate = new InsnPatternMatcher[this.patterns];
+
+		for (int i = 0; i < this.patterns; ++i)
+		{
+			patterns[i] = InsnPattern.seq(
+				InsnPattern.insn(Opcodes.ILOAD),
+				InsnPattern.insn(PUSH_OPCODES[i % PUSH_OPCODES.length]),
+				InsnPattern.optional(InsnPattern.capture("call", InsnPattern.insn(new MethodMatcher(SyntheticClass.HOOKS, SyntheticClass.MATCHED, null)))),
+				InsnPattern.insn(STORE_OPCODES[i / PUSH_OPCODES.length % STORE_OPCODES.length])
+			);
+
+			this.separate[i] = new InsnPatternMatcher(patterns[i]);
+		}
+
+		this.compiled = new InsnPatternMatcher(patterns);
+	}
+
+	@Benchmark
+	public int separate()
+	{
+		int matches = 0;
+
+		for (final InsnPatternMatcher matcher : this.separate)
+			matches += matcher.match(this.methodNode).size();
+
+		return matches;
+	}
+
+	@Benchmark
+	public int compiled()
+	{
+		return this.compiled.match(this.methodNode).size();
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.InjectionLocator;
+import ocd.asmutil.injectors.InvokeInjector;
+import ocd.asmutil.matchers.ConstantMatcher;
+import ocd.asmutil.matchers.FieldMatcher;
+import ocd.asmutil.matchers.InsnMatcher;
+import ocd.asmutil.matchers.MethodMatcher;
+import ocd.asmutil.transformers.LineInjector;
+import ocd.asmutil.transformers.LineInjector.LineProcessor;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocatorDispatchBenchmark
+{
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	@Param({"1", "16", "64"})
+	public int processors;
+
+	private byte[] classFile;
+	private LineInjector injector;
+
+	@Setup
+	public void setup()
+	{
+		this.classFile = SyntheticClass.generate(1, 1000, 10);
+
+		final LineProcessor[] processors = new LineProcessor[this.processors];
+		final MethodMatcher matcher = new MethodMatcher(SyntheticClass.HOOKS, SyntheticClass.MATCHED, null);
+
+		processors[0] = new LineProcessor(matcher, matcher, 0, new InvokeInjector(SyntheticClass.HOOKS, "twice", "(I)I", false, true));
+
+		// Processors that never match, spread over the different kinds of locators
+		for (int i = 1; i < this.processors; ++i)
+			processors[i] = new LineProcessor(missingLocator(i), new InvokeInjector(SyntheticClass.HOOKS, "hook", "(Ljava/lang/Object;)V", false, true));
+
+		this.injector = new LineInjector(processors);
+	}
+
+	private static InjectionLocator missingLocator(final int i)
+	{
+		switch (i % 4)
+		{
+		case 0:
+			return new MethodMatcher(SyntheticClass.HOOKS, "missing" + i, null);
+		case 1:
+			return new FieldMatcher(Opcodes.GETSTATIC, SyntheticClass.HOOKS, "missing" + i, null);
+		case 2:
+			return new ConstantMatcher("missing" + i);
+		default:
+			return new InsnMatcher(Opcodes.MONITORENTER);
+		}
+	}
+
+	@Benchmark
+	public MethodNode transform() throws Exception
+	{
+		return this.injector.transform(SyntheticClass.NAME, SyntheticClass.readMethod(this.classFile, 0), LOGGER);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.DispatchClassTransformer;
+import ocd.asmutil.MethodTransformer;
+
+// Classes keep loading on several threads while transformers are registered for other classes and methods.
+// Every transformed class is checked against the result of a quiet registry, so that torn reads fail the run.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryStressBenchmark
+{
+	private static final String NAME = SyntheticClass.NAME.replace('/', '.');
+	private static final int MAX_REGISTRATIONS = 2048;
+
+	private byte[] classFile;
+	private byte[] expected;
+
+	private DispatchClassTransformer transformer;
+	private MethodTransformer methodTransformer;
+
+	private final AtomicInteger registrations = new AtomicInteger();
+
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		this.classFile = SyntheticClass.generate(4, 100, 10);
+
+		this.methodTransformer = new MethodTransformer();
+		this.methodTransformer.addTransformer("method0", null, Transformers.lineInjector(), Transformers.initInjector());
+
+		this.transformer = new DispatchClassTransformer(LogManager.getLogger(), false).addTransformer(NAME, this.methodTransformer);
+		this.expected = this.transformer.transform(NAME, NAME, this.classFile);
+
+		this.registrations.set(0);
+	}
+
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(3)
+	public byte[] transform()
+	{
+		final byte[] transformedClass = this.transformer.transform(NAME, NAME, this.classFile);
+
+		if (!Arrays.equals(transformedClass, this.expected))
+			throw new IllegalStateException("Class transformed differently while transformers were being added");
+
+		return transformedClass;
+	}
+
+	@Benchmark
+	@Group("registry")
+	@GroupThreads(1)
+	public DispatchClassTransformer register()
+	{
+		final int i = this.registrations.incrementAndGet();
+
+		// Registrations are copy-on-write, so bound their number to keep the copies from dominating the run
+		if (i > MAX_REGISTRATIONS)
+			return this.transformer;
+
+		this.methodTransformer.addTransformer("late" + i, null, Transformers.lineInjector());
+
+		return this.transformer.addTransformer("ocd.asmutil.benchmark.Late" + i, new MethodTransformer());
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ocd.asmutil.InterningClassReader;
+import ocd.asmutil.matchers.MethodMatcher.MethodDescriptor;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolMatchBenchmark
+{
+	@Param({"false", "true"})
+	public boolean intern;
+
+	private MethodInsnNode[] calls;
+	private MethodDescriptor[] descriptors;
+
+	@Setup
+	public void setup()
+	{
+		final byte[] classFile = SyntheticClass.generate(1, 1000, 10);
+		final ClassNode classNode = new ClassNode();
+
+		(this.intern ? new InterningClassReader(classFile) : new ClassReader(classFile)).accept(classNode, ClassReader.EXPAND_FRAMES);
+
+		// Only the comparisons are measured, not walking the instruction list
+		final List<MethodInsnNode> calls = new ArrayList<>();
+
+		for (AbstractInsnNode insn = classNode.methods.get(0).instructions.getFirst(); insn != null; insn = insn.getNext())
+			if (insn instanceof MethodInsnNode)
+				calls.add((MethodInsnNode) insn);
+
+		this.calls = calls.toArray(new MethodInsnNode[0]);
+
+		// Descriptors sharing the name length and owner of the called methods, so that only their contents differ
+		this.descriptors = new MethodDescriptor[] {
+			new MethodDescriptor(SyntheticClass.HOOKS, SyntheticClass.MATCHED, "(II)I"),
+			new MethodDescriptor(SyntheticClass.HOOKS, "compile", "(II)I"),
+			new MethodDescriptor(SyntheticClass.HOOKS, "combing", "(II)I"),
+			new MethodDescriptor("java/lang/StringBuilder", "<init>", null)
+		};
+	}
+
+	@Benchmark
+	public int match()
+	{
+		int matches = 0;
+
+		for (final MethodInsnNode call : this.calls)
+			for (final MethodDescriptor md : this.descriptors)
+				if (md.matches(call))
+					++matches;
+
+		return matches;
+	}
+}
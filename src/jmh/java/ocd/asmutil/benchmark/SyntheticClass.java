@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import java.util.Random;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public class SyntheticClass
+{
+	public static final String NAME = "ocd/asmutil/benchmark/Synthetic";
+	public static final String HOOKS = "ocd/asmutil/benchmark/Hooks";
+
+	public static final String MATCHED = "compute";
+	public static final String UNMATCHED = "combine";
+
+	private static final long SEED = 0x5EEDL;
+
+	public enum Size
+	{
+		SMALL(4, 10),
+		MEDIUM(32, 50),
+		HUGE(128, 400);
+
+		public final int methods;
+		public final int statements;
+
+		Size(final int methods, final int statements)
+		{
+			this.methods = methods;
+			this.statements = statements;
+		}
+	}
+
+	public static byte[] generate(final int methods, final int statements, final int matchedStatements)
+	{
+		final Random random = new Random(SEED);
+
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, NAME, null, "java/lang/Object", null);
+
+		for (int i = 0; i < methods; ++i)
+		{
+			final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "(I)I", null, null);
+			mv.visitCode();
+
+			int matched = 0;
+
+			for (int j = 0; j < statements; ++j)
+				if (visitStatement(mv, random, matched < matchedStatements))
+					++matched;
+
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitInsn(Opcodes.IRETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
+	private static boolean visitStatement(final MethodVisitor mv, final Random random, final boolean matched)
+	{
+		switch (random.nextInt(4))
+		{
+		case 0:
+			// x = Hooks.compute(x, c);
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitIntInsn(Opcodes.SIPUSH, random.nextInt(Short.MAX_VALUE));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, HOOKS, matched ? MATCHED : UNMATCHED, "(II)I", false);
+			mv.visitVarInsn(Opcodes.ISTORE, 1);
+			return matched;
+		case 1:
+			// Hooks.consume(new StringBuilder("..."));
+			mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitLdcInsn("str" + random.nextInt(1000));
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(Ljava/lang/String;)V", false);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, HOOKS, "consume", "(Ljava/lang/Object;)V", false);
+			return false;
+		case 2:
+			// if (x > c) --x;
+			final Label label = new Label();
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitIntInsn(Opcodes.BIPUSH, random.nextInt(Byte.MAX_VALUE));
+			mv.visitJumpInsn(Opcodes.IF_ICMPLE, label);
+			mv.visitIincInsn(1, -1);
+			mv.visitLabel(label);
+			return false;
+		default:
+			// x = x * c + x;
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitIntInsn(Opcodes.BIPUSH, random.nextInt(Byte.MAX_VALUE));
+			mv.visitInsn(Opcodes.IMUL);
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitInsn(Opcodes.IADD);
+			mv.visitVarInsn(Opcodes.ISTORE, 1);
+			return false;
+		}
+	}
+
+	public static MethodNode readMethod(final byte[] classFile, final int index)
+	{
+		final ClassNode classNode = new ClassNode();
+		new ClassReader(classFile).accept(classNode, ClassReader.EXPAND_FRAMES);
+
+		return classNode.methods.get(index);
+	}
+}
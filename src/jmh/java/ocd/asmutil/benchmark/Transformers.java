@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.benchmark;
+
+import ocd.asmutil.injectors.InvokeInjector;
+import ocd.asmutil.matchers.MethodMatcher;
+import ocd.asmutil.transformers.InitInjector;
+import ocd.asmutil.transformers.LineInjector;
+
+public class Transformers
+{
+	public static LineInjector lineInjector()
+	{
+		final MethodMatcher matcher = new MethodMatcher(SyntheticClass.HOOKS, SyntheticClass.MATCHED, null);
+
+		return new LineInjector(matcher, matcher, 0, new InvokeInjector(SyntheticClass.HOOKS, "twice", "(I)I", false, true));
+	}
+
+	public static InitInjector initInjector()
+	{
+		return new InitInjector(
+			"java/lang/StringBuilder",
+			"(Ljava/lang/String;)V",
+			new InvokeInjector(SyntheticClass.HOOKS, "hook", "(Ljava/lang/Object;)V", false, true)
+		);
+	}
+}
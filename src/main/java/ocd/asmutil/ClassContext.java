@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import javax.annotation.Nullable;
+
+import ocd.asmutil.metrics.TransformMetrics;
+import ocd.asmutil.verifiers.StrictVerifier;
+
+public class ClassContext
+{
+	public final String name;
+	public final @Nullable TransformMetrics metrics;
+	public final MethodVerifier verifier;
+
+	private boolean modified;
+	private boolean verified;
+
+	public ClassContext(final String name, final @Nullable TransformMetrics metrics, final MethodVerifier verifier)
+	{
+		this.name = name;
+		this.metrics = metrics;
+		this.verifier = verifier;
+	}
+
+	public ClassContext(final String name, final @Nullable TransformMetrics metrics)
+	{
+		this(name, metrics, StrictVerifier.INSTANCE);
+	}
+
+	public ClassContext(final String name)
+	{
+		this(name, null);
+	}
+
+	public @Nullable TransformMetrics getActiveMetrics()
+	{
+		return this.metrics != null && this.metrics.isEnabled() ? this.metrics : null;
+	}
+
+	public void markModified()
+	{
+		this.modified = true;
+	}
+
+	public boolean isModified()
+	{
+		return this.modified;
+	}
+
+	public void markVerified()
+	{
+		this.verified = true;
+	}
+
+	public boolean isVerified()
+	{
+		return this.verified;
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+
+public class ConstantPool
+{
+	private static final int UTF8 = 1;
+	private static final int INT = 3;
+	private static final int FLOAT = 4;
+	private static final int LONG = 5;
+	private static final int DOUBLE = 6;
+
+	private final ClassReader cr;
+
+	public ConstantPool(final ClassReader cr)
+	{
+		this.cr = cr;
+	}
+
+	private int getTag(final int item)
+	{
+		return this.cr.b[item - 1];
+	}
+
+	public boolean containsUtf8(final String str)
+	{
+		final byte[] b = this.cr.b;
+		final int len = getUtf8Length(str);
+
+		for (int i = 1; i < this.cr.getItemCount(); ++i)
+		{
+			final int item = this.cr.getItem(i);
+
+			if (item == 0 || this.getTag(item) != UTF8 || this.cr.readUnsignedShort(item) != len)
+				continue;
+
+			if (utf8Equals(str, b, item + 2))
+				return true;
+		}
+
+		return false;
+	}
+
+	public boolean containsConstant(final Object cst)
+	{
+		if (cst instanceof String)
+			return this.containsUtf8((String) cst);
+
+		if (cst instanceof Type)
+		{
+			final Type type = (Type) cst;
+
+			return this.containsUtf8(type.getSort() == Type.METHOD ? type.getDescriptor() : type.getInternalName());
+		}
+
+		final int tag;
+
+		if (cst instanceof Integer)
+			tag = INT;
+		else if (cst instanceof Float)
+			tag = FLOAT;
+		else if (cst instanceof Long)
+			tag = LONG;
+		else if (cst instanceof Double)
+			tag = DOUBLE;
+		else
+			return true;
+
+		for (int i = 1; i < this.cr.getItemCount(); ++i)
+		{
+			final int item = this.cr.getItem(i);
+
+			if (item == 0 || this.getTag(item) != tag)
+				continue;
+
+			if (this.readNumber(item, tag).equals(cst))
+				return true;
+		}
+
+		return false;
+	}
+
+	// Single pass over the pool, instead of one per constant
+	public boolean containsAnyConstant(final Collection<?> csts)
+	{
+		final Map<Integer, List<String>> strings = new HashMap<>();
+		final Set<Object> numbers = new HashSet<>();
+
+		for (final Object cst : csts)
+		{
+			final String str;
+
+			if (cst instanceof String)
+				str = (String) cst;
+			else if (cst instanceof Type)
+			{
+				final Type type = (Type) cst;
+				str = type.getSort() == Type.METHOD ? type.getDescriptor() : type.getInternalName();
+			}
+			else if (cst instanceof Integer || cst instanceof Float || cst instanceof Long || cst instanceof Double)
+			{
+				numbers.add(cst);
+				continue;
+			}
+			else
+				return true;
+
+			strings.computeIfAbsent(getUtf8Length(str), k -> new ArrayList<>()).add(str);
+		}
+
+		final byte[] b = this.cr.b;
+
+		for (int i = 1; i < this.cr.getItemCount(); ++i)
+		{
+			final int item = this.cr.getItem(i);
+
+			if (item == 0)
+				continue;
+
+			final int tag = this.getTag(item);
+
+			if (tag == UTF8)
+			{
+				final List<String> candidates = strings.get(this.cr.readUnsignedShort(item));
+
+				if (candidates != null)
+					for (final String str : candidates)
+						if (utf8Equals(str, b, item + 2))
+							return true;
+			}
+			else if ((tag == INT || tag == FLOAT || tag == LONG || tag == DOUBLE) && !numbers.isEmpty())
+			{
+				if (numbers.contains(this.readNumber(item, tag)))
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	private Object readNumber(final int item, final int tag)
+	{
+		switch (tag)
+		{
+		case INT:
+			return this.cr.readInt(item);
+		case FLOAT:
+			return Float.intBitsToFloat(this.cr.readInt(item));
+		case LONG:
+			return this.cr.readLong(item);
+		default:
+			return Double.longBitsToDouble(this.cr.readLong(item));
+		}
+	}
+
+	private static int getUtf8Length(final String str)
+	{
+		int len = 0;
+
+		for (int i = 0; i < str.length(); ++i)
+		{
+			final char c = str.charAt(i);
+
+			if (c >= 0x0001 && c <= 0x007F)
+				len += 1;
+			else if (c <= 0x07FF)
+				len += 2;
+			else
+				len += 3;
+		}
+
+		return len;
+	}
+
+	private static boolean utf8Equals(final String str, final byte[] b, int index)
+	{
+		for (int i = 0; i < str.length(); ++i)
+		{
+			final char c = str.charAt(i);
+
+			if (c >= 0x0001 && c <= 0x007F)
+			{
+				if (b[index++] != (byte) c)
+					return false;
+			}
+			else if (c <= 0x07FF)
+			{
+				if (b[index++] != (byte) (0xC0 | c >> 6 & 0x1F) || b[index++] != (byte) (0x80 | c & 0x3F))
+					return false;
+			}
+			else
+			{
+				if (b[index++] != (byte) (0xE0 | c >> 12 & 0x0F) || b[index++] != (byte) (0x80 | c >> 6 & 0x3F) || b[index++] != (byte) (0x80 | c & 0x3F))
+					return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -25,11 +25,15 @@
 
 package ocd.asmutil;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
 
 import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.ClassReader;
@@ -37,12 +41,36 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ObjectArrays;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import ocd.asmutil.cache.ClassCache;
+import ocd.asmutil.metrics.TransformEvents;
+import ocd.asmutil.metrics.TransformMetrics;
+import ocd.asmutil.verifiers.StrictVerifier;
+
 public class DispatchClassTransformer implements net.minecraft.launchwrapper.IClassTransformer
 {
 	private final Logger logger;
 	private final boolean verify;
 
-	private final Map<String, List<IClassTransformer>> transformers = new HashMap<>();
+	// Copy-on-write, so that classes loading concurrently read it without locking while transformers are still added
+	private volatile ImmutableMap<String, ClassPlan> plans = ImmutableMap.of();
+	private volatile boolean frozen;
+
+	private final ConcurrentMap<HashCode, InFlight> inFlight = new ConcurrentHashMap<>();
+
+	private @Nullable ClassCache cache;
+	private String cacheVersion = "";
+
+	private @Nullable TransformMetrics metrics;
+
+	private MethodVerifier verifier = StrictVerifier.INSTANCE;
 
 	public DispatchClassTransformer(final Logger logger, final boolean verify)
 	{
@@ -50,13 +78,23 @@ public class DispatchClassTransformer implements net.minecraft.launchwrapper.ICl
 		this.verify = verify;
 	}
 
-	public DispatchClassTransformer addTransformer(
+	public synchronized DispatchClassTransformer addTransformer(
 		final String name,
 		final IClassTransformer... transformers
 	)
 	{
-		final List<IClassTransformer> transformerList = this.transformers.computeIfAbsent(name, k -> new ArrayList<>());
-		transformerList.addAll(Arrays.asList(transformers));
+		if (this.frozen)
+			throw new IllegalStateException("Cannot add transformers after freezing");
+
+		final ClassPlan plan = this.plans.get(name);
+		// Plans are read without locking, so they must not share the caller's array
+		final IClassTransformer[] added = ImmutableList.copyOf(transformers).toArray(new IClassTransformer[0]);
+		final IClassTransformer[] transformerArray = plan == null ? added : ObjectArrays.concat(plan.transformers, added, IClassTransformer.class);
+
+		final Map<String, ClassPlan> plans = new HashMap<>(this.plans);
+		plans.put(name, new ClassPlan(transformerArray, false));
+
+		this.plans = ImmutableMap.copyOf(plans);
 
 		return this;
 	}
@@ -71,23 +109,286 @@ public class DispatchClassTransformer implements net.minecraft.launchwrapper.ICl
 		return this;
 	}
 
+	public DispatchClassTransformer setCache(final @Nullable ClassCache cache, final String version)
+	{
+		this.cache = cache;
+		this.cacheVersion = version;
+
+		return this;
+	}
+
+	public DispatchClassTransformer setMetrics(final @Nullable TransformMetrics metrics)
+	{
+		this.metrics = metrics;
+
+		return this;
+	}
+
+	public DispatchClassTransformer setVerifier(final MethodVerifier verifier)
+	{
+		this.verifier = verifier;
+
+		return this;
+	}
+
+	public synchronized DispatchClassTransformer freeze()
+	{
+		if (this.frozen)
+			return this;
+
+		final ImmutableMap.Builder<String, ClassPlan> plans = ImmutableMap.builder();
+
+		for (final Map.Entry<String, ClassPlan> entry : this.plans.entrySet())
+		{
+			for (final IClassTransformer transformer : entry.getValue().transformers)
+				transformer.freeze();
+
+			plans.put(entry.getKey(), new ClassPlan(entry.getValue().transformers, true));
+		}
+
+		this.plans = plans.build();
+		this.frozen = true;
+
+		return this;
+	}
+
 	@Override
 	public byte[] transform(final String name, final String transformedName, final byte[] basicClass)
 	{
-		final List<IClassTransformer> transformers = this.transformers.get(name);
+		final ClassPlan transformers = this.plans.get(name);
 
 		if (transformers == null)
 			return basicClass;
 
-		final ClassReader cr = new ClassReader(basicClass);
+		final TransformMetrics metrics = this.metrics;
+
+		if (metrics == null || !metrics.isEnabled())
+			return this.transform(name, basicClass, transformers);
+
+		final long start = System.nanoTime();
+
+		final byte[] transformedClass = this.transform(name, basicClass, transformers);
+
+		metrics.recordClass(name, System.nanoTime() - start, basicClass.length, transformedClass.length);
+
+		return transformedClass;
+	}
+
+	private byte[] transform(final String name, final byte[] basicClass, final ClassPlan transformers)
+	{
+		final ClassCache cache = this.cache;
+
+		// The key only depends on the input bytes and the plan, so cache hits are answered before the class is parsed
+		final HashCode cacheKey = cache == null ? null : this.getCacheKey(name, basicClass, transformers);
+
+		if (cache != null)
+		{
+			final byte[] cachedClass = this.getCached(cache, name, cacheKey);
+
+			if (cachedClass != null)
+				return cachedClass.length == 0 ? basicClass : cachedClass;
+		}
+
+		// Interned symbols let matchers compare owners, names and descriptors by identity
+		final ClassReader cr = new InterningClassReader(basicClass);
+
+		if (!mayTransform(cr, transformers))
+		{
+			// Skipped classes are cached as unmodified as well, so that later runs do not even scan their constant pool
+			if (cache != null)
+				this.putCached(cache, name, cacheKey, new byte[0]);
+
+			return basicClass;
+		}
+
+		final HashCode key = cacheKey == null ? this.getCacheKey(name, basicClass, transformers) : cacheKey;
+
+		// Class loaders racing on the same class bytes wait for a single transformation instead of repeating it.
+		// A thread that re-enters for a class it is already transforming computes it again rather than deadlocking.
+		final InFlight inFlight = new InFlight();
+		final InFlight leader = this.inFlight.putIfAbsent(key, inFlight);
+
+		if (leader != null)
+			return leader.owner == Thread.currentThread() ? this.transform(name, basicClass, cr, key, transformers) : leader.await(basicClass);
+
+		try
+		{
+			final byte[] transformedClass = this.transform(name, basicClass, cr, key, transformers);
+
+			// The caller is free to modify the returned array, so waiting threads copy from a private one
+			inFlight.complete(transformedClass == basicClass ? new byte[0] : transformedClass.clone());
+
+			return transformedClass;
+		} catch (final RuntimeException | Error e)
+		{
+			inFlight.completeExceptionally(e);
+
+			throw e;
+		} finally
+		{
+			this.inFlight.remove(key, inFlight);
+		}
+	}
+
+	private byte[] transform(final String name, final byte[] basicClass, final ClassReader cr, final HashCode key, final ClassPlan transformers)
+	{
+		final byte[] transformedClass = this.transform(name, cr, transformers);
+
+		final ClassCache cache = this.cache;
+
+		// Unmodified classes are stored as an empty entry instead of a copy of the input
+		if (cache != null)
+			this.putCached(cache, name, key, transformedClass == basicClass ? new byte[0] : transformedClass);
+
+		return transformedClass;
+	}
+
+	@Nullable
+	private byte[] getCached(final ClassCache cache, final String name, final HashCode key)
+	{
+		try
+		{
+			return cache.get(name, key);
+		} catch (final IOException e)
+		{
+			this.logger.warn("Could not read cached class " + name, e);
+
+			return null;
+		}
+	}
+
+	private void putCached(final ClassCache cache, final String name, final HashCode key, final byte[] transformedClass)
+	{
+		try
+		{
+			cache.put(name, key, transformedClass);
+		} catch (final IOException e)
+		{
+			this.logger.warn("Could not cache class " + name, e);
+		}
+	}
+
+	private HashCode getCacheKey(final String name, final byte[] basicClass, final ClassPlan transformers)
+	{
+		final Hasher hasher = Hashing.murmur3_128().newHasher()
+			.putString(this.cacheVersion, StandardCharsets.UTF_8)
+			.putString(name, StandardCharsets.UTF_8)
+			.putBoolean(this.verify)
+			.putInt(basicClass.length)
+			.putBytes(basicClass);
+
+		for (final String fingerprint : transformers.getFingerprints())
+			hasher.putString(fingerprint, StandardCharsets.UTF_8);
+
+		return hasher.hash();
+	}
+
+	private static boolean mayTransform(final ClassReader cr, final ClassPlan transformers)
+	{
+		final ConstantPool cp = new ConstantPool(cr);
+
+		for (final IClassTransformer transformer : transformers.transformers)
+			if (transformer.mayTransform(cp))
+				return true;
+
+		return false;
+	}
+
+	private byte[] transform(final String name, final ClassReader cr, final ClassPlan transformers)
+	{
+		// The writer shares the reader's constant pool, so ASM copies the raw bytes of every method whose visitor is the
+		// writer's own MethodWriter. Transformers must return the downstream visitor untouched for methods they skip,
+		// so that only matched methods get their frames expanded and re-encoded.
 		final ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_MAXS);
 
+		final ClassContext context = new ClassContext(name, this.metrics, this.verifier);
+
+		final Object event = TransformEvents.beginClass(name);
+
 		ClassVisitor cv = cw;
 
-		for (int i = transformers.size() - 1; i >= 0; --i)
-			cv = transformers.get(i).createClassVisitor(this.logger, this.verify, Opcodes.ASM5, cv);
+		for (int i = transformers.transformers.length - 1; i >= 0; --i)
+			cv = transformers.transformers[i].createClassVisitor(this.logger, this.verify, Opcodes.ASM5, cv, context);
 
 		cr.accept(cv, ClassReader.EXPAND_FRAMES);
-		return cw.toByteArray();
+
+		final byte[] transformedClass = context.isModified() ? cw.toByteArray() : cr.b;
+
+		if (event != null)
+			TransformEvents.commitClass(event, transformers.getNames(), context.isModified(), context.isVerified());
+
+		return transformedClass;
+	}
+
+	private static class InFlight extends CompletableFuture<byte[]>
+	{
+		final Thread owner = Thread.currentThread();
+
+		// Like the cache, an empty result stands for the unmodified class
+		byte[] await(final byte[] basicClass)
+		{
+			try
+			{
+				final byte[] transformedClass = this.join();
+
+				return transformedClass.length == 0 ? basicClass : transformedClass.clone();
+			} catch (final CompletionException e)
+			{
+				Throwables.throwIfUnchecked(e.getCause());
+
+				throw e;
+			}
+		}
+	}
+
+	private static class ClassPlan
+	{
+		final IClassTransformer[] transformers;
+
+		// Only precomputed for frozen plans, as unfrozen transformers may still change their fingerprints
+		private final @Nullable String[] fingerprints;
+		private final @Nullable String names;
+
+		ClassPlan(final IClassTransformer[] transformers, final boolean frozen)
+		{
+			this.transformers = transformers;
+			this.fingerprints = frozen ? this.computeFingerprints() : null;
+			this.names = frozen ? this.computeNames() : null;
+		}
+
+		String[] getFingerprints()
+		{
+			return this.fingerprints == null ? this.computeFingerprints() : this.fingerprints;
+		}
+
+		String getNames()
+		{
+			return this.names == null ? this.computeNames() : this.names;
+		}
+
+		private String[] computeFingerprints()
+		{
+			final String[] fingerprints = new String[this.transformers.length];
+
+			for (int i = 0; i < this.transformers.length; ++i)
+				fingerprints[i] = this.transformers[i].getFingerprint();
+
+			return fingerprints;
+		}
+
+		private String computeNames()
+		{
+			final StringBuilder sb = new StringBuilder();
+
+			for (final IClassTransformer transformer : this.transformers)
+			{
+				if (sb.length() != 0)
+					sb.append(", ");
+
+				sb.append(ClassCache.fingerprint(transformer));
+			}
+
+			return sb.toString();
+		}
 	}
 }
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.Interpreter;
+
+import ocd.asmutil.frame.FrameUtil;
+import ocd.asmutil.frame.TrackingValue;
+
+public interface FusibleTransformer extends MethodNodeTransformer
+{
+	Pass createPass(
+		String className,
+		MethodNode methodNode,
+		Logger logger,
+		MethodContext context,
+		Interpreter<TrackingValue> interpreter,
+		@Nullable TrackingValue retType
+	);
+
+	@Override
+	default MethodNode transform(final String className, final MethodNode methodNode, final Logger logger) throws MethodTransformerException, AnalyzerException
+	{
+		return this.transform(className, methodNode, logger, new MethodContext());
+	}
+
+	@Override
+	default MethodNode transform(
+		final String className,
+		final MethodNode methodNode,
+		final Logger logger,
+		final MethodContext context
+	) throws MethodTransformerException, AnalyzerException
+	{
+		return runPasses(className, methodNode, logger, context, this);
+	}
+
+	static MethodNode runPasses(
+		final String className,
+		final MethodNode methodNode,
+		final Logger logger,
+		final MethodContext context,
+		final FusibleTransformer... transformers
+	) throws MethodTransformerException, AnalyzerException
+	{
+		// Transformers without a candidate site in this method are skipped, and so is the whole walk if none is left
+		final FusibleTransformer[] active = new FusibleTransformer[transformers.length];
+		int nActive = 0;
+
+		for (final FusibleTransformer transformer : transformers)
+			if (transformer.mayTransform(methodNode, context))
+				active[nActive++] = transformer;
+
+		if (nActive == 0)
+			return methodNode;
+
+		final Interpreter<TrackingValue> interpreter = context.getInterpreter();
+		final TrackingValue retType = interpreter.newValue(Type.getReturnType(methodNode.desc));
+
+		final Pass[] passes = new Pass[nActive];
+
+		for (int i = 0; i < nActive; ++i)
+			passes[i] = active[i].createPass(className, methodNode, logger, context, interpreter, retType);
+
+		final Frame<TrackingValue> frame = FrameUtil.getFrame(null, className, methodNode, retType, interpreter);
+
+		final InsnList insns = methodNode.instructions;
+
+		// Passes may insert code after the current instruction, updating the shared frame for it, or remove code before it.
+		// Either way the walk resumes at the original successor, so injected code is never visited by any pass.
+		// Once a pass removed the current instruction, the remaining passes skip it, as there is no code left to patch.
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; )
+		{
+			final AbstractInsnNode next = insn.getNext();
+
+			for (final Pass pass : passes)
+				pass.preVisit(insn, frame);
+
+			FrameUtil.execute(insn, frame, className, methodNode, retType, interpreter);
+
+			for (int i = 0; i < passes.length && isAttached(insns, insn); ++i)
+				passes[i].visit(insn, frame);
+
+			insn = next;
+		}
+
+		for (final Pass pass : passes)
+			pass.visitEnd();
+
+		return methodNode;
+	}
+
+	static boolean isAttached(final InsnList insns, final AbstractInsnNode insn)
+	{
+		return insn.getPrevious() != null || insn.getNext() != null || insns.getFirst() == insn;
+	}
+
+	interface Pass
+	{
+		default void preVisit(final AbstractInsnNode insn, final Frame<TrackingValue> frame) throws MethodTransformerException, AnalyzerException
+		{
+		}
+
+		void visit(AbstractInsnNode insn, Frame<TrackingValue> frame) throws MethodTransformerException, AnalyzerException;
+
+		default void visitEnd() throws MethodTransformerException
+		{
+		}
+	}
+}
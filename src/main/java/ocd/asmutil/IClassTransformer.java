@@ -28,10 +28,35 @@ package ocd.asmutil;
 import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.ClassVisitor;
 
-public interface IClassTransformer
+import ocd.asmutil.cache.Fingerprinted;
+import ocd.asmutil.cache.Fingerprints;
+
+public interface IClassTransformer extends Fingerprinted
 {
 	ClassVisitor createClassVisitor(final Logger logger, final boolean verify, final int api, final ClassVisitor cv);
 
+	default ClassVisitor createClassVisitor(final Logger logger, final boolean verify, final int api, final ClassVisitor cv, final ClassContext context)
+	{
+		context.markModified();
+
+		return this.createClassVisitor(logger, verify, api, cv);
+	}
+
+	default boolean mayTransform(final ConstantPool cp)
+	{
+		return true;
+	}
+
+	default String getFingerprint()
+	{
+		return Fingerprints.hash(this);
+	}
+
+	// Called once all registrations are done. Transformers may then reject further changes and precompute lookups.
+	default void freeze()
+	{
+	}
+
 	interface Named extends IClassTransformer
 	{
 		String getName();
@@ -28,18 +28,105 @@ package ocd.asmutil;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
-public interface InjectionLocator
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.cache.Fingerprinted;
+import ocd.asmutil.cache.Fingerprints;
+
+public interface InjectionLocator extends Fingerprinted
 {
 	boolean test(MethodNode node, AbstractInsnNode insn);
 
+	default boolean mayMatch(final ConstantPool cp)
+	{
+		return true;
+	}
+
+	// Opcode -1 stands for labels, line numbers and frames
+	default boolean mayMatch(final int opcode)
+	{
+		return true;
+	}
+
+	default boolean mayMatch(final InsnIndex index)
+	{
+		return index.containsAny(this);
+	}
+
 	default InjectionLocator and(final InjectionLocator locator)
 	{
-		return (node, insn) -> InjectionLocator.this.test(node, insn) && locator.test(node, insn);
+		return new InjectionLocator()
+		{
+			@Override
+			public boolean test(final MethodNode node, final AbstractInsnNode insn)
+			{
+				return InjectionLocator.this.test(node, insn) && locator.test(node, insn);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return InjectionLocator.this.mayMatch(cp) && locator.mayMatch(cp);
+			}
+
+			@Override
+			public boolean mayMatch(final int opcode)
+			{
+				return InjectionLocator.this.mayMatch(opcode) && locator.mayMatch(opcode);
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return InjectionLocator.this.mayMatch(index) && locator.mayMatch(index);
+			}
+
+			@Override
+			public void fingerprint(final Hasher hasher)
+			{
+				Fingerprints.putClass(hasher, this);
+				InjectionLocator.this.fingerprint(hasher);
+				locator.fingerprint(hasher);
+			}
+		};
 	}
 
 	default InjectionLocator or(final InjectionLocator locator)
 	{
-		return (node, insn) -> InjectionLocator.this.test(node, insn) || locator.test(node, insn);
+		return new InjectionLocator()
+		{
+			@Override
+			public boolean test(final MethodNode node, final AbstractInsnNode insn)
+			{
+				return InjectionLocator.this.test(node, insn) || locator.test(node, insn);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return InjectionLocator.this.mayMatch(cp) || locator.mayMatch(cp);
+			}
+
+			@Override
+			public boolean mayMatch(final int opcode)
+			{
+				return InjectionLocator.this.mayMatch(opcode) || locator.mayMatch(opcode);
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return InjectionLocator.this.mayMatch(index) || locator.mayMatch(index);
+			}
+
+			@Override
+			public void fingerprint(final Hasher hasher)
+			{
+				Fingerprints.putClass(hasher, this);
+				InjectionLocator.this.fingerprint(hasher);
+				locator.fingerprint(hasher);
+			}
+		};
 	}
 
 	interface Simple extends InjectionLocator
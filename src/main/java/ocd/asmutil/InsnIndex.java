@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import ocd.asmutil.matchers.ConstantMatcher;
+
+public class InsnIndex
+{
+	// Opcodes are shifted by one, so that labels, line numbers and frames (-1) get bucket 0
+	private static final int BUCKETS = 257;
+
+	private final MethodNode methodNode;
+
+	// Each lookup is only built once it is first queried, as most methods only ever need one of them
+	private @Nullable List<List<AbstractInsnNode>> byOpcode;
+	private @Nullable Map<String, List<AbstractInsnNode>> byName;
+	private @Nullable Map<Object, List<AbstractInsnNode>> byConstant;
+
+	private InsnIndex(final MethodNode methodNode)
+	{
+		this.methodNode = methodNode;
+	}
+
+	public static InsnIndex build(final MethodNode methodNode)
+	{
+		return new InsnIndex(methodNode);
+	}
+
+	public MethodNode getMethodNode()
+	{
+		return this.methodNode;
+	}
+
+	// The lookups return candidates in no particular order, and must not be modified
+
+	public List<AbstractInsnNode> getByOpcode(final int opcode)
+	{
+		if (this.byOpcode == null)
+		{
+			this.byOpcode = new ArrayList<>(Collections.nCopies(BUCKETS, null));
+
+			for (AbstractInsnNode insn = this.methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+				this.addByOpcode(insn);
+		}
+
+		final List<AbstractInsnNode> insns = this.byOpcode.get(opcode + 1);
+
+		return insns == null ? Collections.emptyList() : insns;
+	}
+
+	// Method and field instructions
+	public List<AbstractInsnNode> getByName(final String name)
+	{
+		if (this.byName == null)
+		{
+			this.byName = new HashMap<>();
+
+			for (AbstractInsnNode insn = this.methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+				this.addByName(insn);
+		}
+
+		return this.byName.getOrDefault(name, Collections.emptyList());
+	}
+
+	// Instructions pushing a constant, as decoded by ConstantMatcher.getConstant
+	public List<AbstractInsnNode> getByConstant(final Object cst)
+	{
+		if (this.byConstant == null)
+		{
+			this.byConstant = new HashMap<>();
+
+			for (AbstractInsnNode insn = this.methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+				this.addByConstant(insn);
+		}
+
+		return this.byConstant.getOrDefault(cst, Collections.emptyList());
+	}
+
+	// Uses only the opcode hints, for locators without a more precise lookup
+	public boolean containsAny(final InjectionLocator locator)
+	{
+		for (int opcode = -1; opcode < BUCKETS - 1; ++opcode)
+			if (!this.getByOpcode(opcode).isEmpty() && locator.mayMatch(opcode))
+				return true;
+
+		return false;
+	}
+
+	private void addByOpcode(final AbstractInsnNode insn)
+	{
+		final int bucket = insn.getOpcode() + 1;
+		List<AbstractInsnNode> insns = this.byOpcode.get(bucket);
+
+		if (insns == null)
+			this.byOpcode.set(bucket, insns = new ArrayList<>());
+
+		insns.add(insn);
+	}
+
+	private void addByName(final AbstractInsnNode insn)
+	{
+		final String name = getName(insn);
+
+		if (name != null)
+			this.byName.computeIfAbsent(name, k -> new ArrayList<>()).add(insn);
+	}
+
+	private void addByConstant(final AbstractInsnNode insn)
+	{
+		final Object cst = ConstantMatcher.getConstant(insn);
+
+		if (cst != null)
+			this.byConstant.computeIfAbsent(cst, k -> new ArrayList<>()).add(insn);
+	}
+
+	@Nullable
+	private static String getName(final AbstractInsnNode insn)
+	{
+		if (insn instanceof MethodInsnNode)
+			return ((MethodInsnNode) insn).name;
+
+		if (insn instanceof FieldInsnNode)
+			return ((FieldInsnNode) insn).name;
+
+		return null;
+	}
+}
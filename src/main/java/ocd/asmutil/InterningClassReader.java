@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.ClassReader;
+
+public class InterningClassReader extends ClassReader
+{
+	private static final int CLASS = 7;
+	private static final int NAME_TYPE = 12;
+	private static final int METHOD_TYPE = 16;
+
+	private final String[] symbols = new String[this.getItemCount()];
+
+	// Only owners, member names and descriptors are interned. String constants and signatures rarely repeat across classes
+	// and are left to ASM's own per-reader cache.
+	private final boolean[] names = this.findNames();
+
+	public InterningClassReader(final byte[] b)
+	{
+		super(b);
+	}
+
+	private boolean[] findNames()
+	{
+		final boolean[] names = new boolean[this.getItemCount()];
+
+		for (int i = 1; i < names.length; ++i)
+		{
+			final int item = this.getItem(i);
+
+			// The second slot of longs and doubles has no item
+			if (item == 0)
+				continue;
+
+			switch (this.b[item - 1])
+			{
+			case CLASS:
+			case METHOD_TYPE:
+				names[this.readUnsignedShort(item)] = true;
+				break;
+			case NAME_TYPE:
+				names[this.readUnsignedShort(item)] = true;
+				names[this.readUnsignedShort(item + 2)] = true;
+				break;
+			}
+		}
+
+		// Declared fields and methods, which need not be referenced from the constant pool
+		int u = this.header + 8 + this.readUnsignedShort(this.header + 6) * 2;
+
+		for (int kind = 0; kind < 2; ++kind)
+		{
+			final int n = this.readUnsignedShort(u);
+			u += 2;
+
+			for (int i = 0; i < n; ++i)
+			{
+				// Access flags, name, descriptor and attribute count, followed by the attributes
+				names[this.readUnsignedShort(u + 2)] = true;
+				names[this.readUnsignedShort(u + 4)] = true;
+
+				final int nAttributes = this.readUnsignedShort(u + 6);
+				u += 8;
+
+				for (int j = 0; j < nAttributes; ++j)
+					u += 6 + this.readInt(u + 2);
+			}
+		}
+
+		return names;
+	}
+
+	@Override
+	@Nullable
+	public String readUTF8(final int index, final char[] buf)
+	{
+		final int item = this.readUnsignedShort(index);
+
+		if (index == 0 || item == 0)
+			return null;
+
+		if (!this.names[item])
+			return super.readUTF8(index, buf);
+
+		final String symbol = this.symbols[item];
+
+		if (symbol != null)
+			return symbol;
+
+		return this.symbols[item] = SymbolTable.intern(super.readUTF8(index, buf));
+	}
+}
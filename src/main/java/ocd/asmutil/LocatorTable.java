@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+public class LocatorTable
+{
+	// Opcodes are shifted by one, so that labels, line numbers and frames (-1) get bucket 0
+	private static final int BUCKETS = 257;
+
+	private final InjectionLocator[] locators;
+	private final int[][] buckets = new int[BUCKETS][];
+
+	public LocatorTable(final InjectionLocator... locators)
+	{
+		this.locators = locators;
+
+		final int[] candidates = new int[locators.length];
+
+		// Most buckets end up with the same candidates, so they share a single array
+		final List<int[]> distinct = new ArrayList<>();
+
+		for (int bucket = 0; bucket < BUCKETS; ++bucket)
+		{
+			int n = 0;
+
+			for (int i = 0; i < locators.length; ++i)
+				if (locators[i].mayMatch(bucket - 1))
+					candidates[n++] = i;
+
+			this.buckets[bucket] = share(distinct, Arrays.copyOf(candidates, n));
+		}
+	}
+
+	private static int[] share(final List<int[]> distinct, final int[] candidates)
+	{
+		for (final int[] bucket : distinct)
+			if (Arrays.equals(bucket, candidates))
+				return bucket;
+
+		distinct.add(candidates);
+
+		return candidates;
+	}
+
+	public int size()
+	{
+		return this.locators.length;
+	}
+
+	public InjectionLocator get(final int index)
+	{
+		return this.locators[index];
+	}
+
+	public int[] getCandidates(final int opcode)
+	{
+		return this.buckets[opcode + 1];
+	}
+
+	public int[] getCandidates(final AbstractInsnNode insn)
+	{
+		return this.getCandidates(insn.getOpcode());
+	}
+}
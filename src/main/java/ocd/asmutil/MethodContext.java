@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+import ocd.asmutil.frame.TrackingValue.TrackingInterpreter;
+
+public class MethodContext
+{
+	private boolean modified;
+	private int modCount;
+
+	private @Nullable TrackingInterpreter interpreter;
+	private @Nullable InsnIndex insnIndex;
+	private int insnIndexModCount;
+
+	// Must follow every edit. Edits are not tracked one by one, so the InsnIndex is rebuilt on its next use after each call.
+	public void markModified()
+	{
+		this.modified = true;
+		++this.modCount;
+	}
+
+	public boolean isModified()
+	{
+		return this.modified;
+	}
+
+	public TrackingInterpreter getInterpreter()
+	{
+		if (this.interpreter == null)
+			this.interpreter = new TrackingInterpreter(Opcodes.ASM5, true);
+
+		return this.interpreter;
+	}
+
+	public InsnIndex getInsnIndex(final MethodNode methodNode)
+	{
+		if (this.insnIndex == null || this.insnIndex.getMethodNode() != methodNode || this.insnIndexModCount != this.modCount)
+		{
+			this.insnIndex = InsnIndex.build(methodNode);
+			this.insnIndexModCount = this.modCount;
+		}
+
+		return this.insnIndex;
+	}
+}
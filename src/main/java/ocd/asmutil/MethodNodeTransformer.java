@@ -29,7 +29,34 @@ import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 
-public interface MethodNodeTransformer
+import ocd.asmutil.cache.Fingerprinted;
+
+public interface MethodNodeTransformer extends Fingerprinted
 {
 	MethodNode transform(String className, MethodNode methodNode, Logger logger) throws MethodTransformerException, AnalyzerException;
+
+	default MethodNode transform(
+		final String className,
+		final MethodNode methodNode,
+		final Logger logger,
+		final MethodContext context
+	) throws MethodTransformerException, AnalyzerException
+	{
+		final MethodNode transformed = this.transform(className, methodNode, logger);
+
+		context.markModified();
+
+		return transformed;
+	}
+
+	default boolean mayTransform(final ConstantPool cp)
+	{
+		return true;
+	}
+
+	// Transformers returning false must leave the method untouched. The context's InsnIndex is the cheap way to decide.
+	default boolean mayTransform(final MethodNode methodNode, final MethodContext context)
+	{
+		return true;
+	}
 }
@@ -28,6 +28,8 @@ package ocd.asmutil;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -37,26 +39,39 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.MethodNode;
-import org.objectweb.asm.tree.analysis.Analyzer;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
-import org.objectweb.asm.tree.analysis.BasicValue;
-import org.objectweb.asm.tree.analysis.BasicVerifier;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.hash.Hasher;
 
+import ocd.asmutil.cache.ClassCache;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.matchers.MethodMatcher.MethodDescriptor;
+import ocd.asmutil.metrics.TransformEvents;
+import ocd.asmutil.metrics.TransformMetrics;
 
 public class MethodTransformer implements IClassTransformer
 {
-	private final Multimap<String, Pair<MethodDescriptor, MethodNodeTransformer[]>> transformers = ArrayListMultimap.create();
+	// Copy-on-write, so that methods of concurrently loading classes are dispatched without locking
+	private volatile ImmutableListMultimap<String, Pair<MethodDescriptor, MethodNodeTransformer[]>> transformers = ImmutableListMultimap.of();
 
-	public MethodTransformer addTransformer(
+	private @Nullable ForkJoinPool pool;
+
+	private volatile boolean frozen;
+	private volatile @Nullable String fingerprint;
+
+	public synchronized MethodTransformer addTransformer(
 		final MethodDescriptor md,
 		final MethodNodeTransformer... transformers
 	)
 	{
-		this.transformers.put(md.name, new ImmutablePair<>(md, transformers));
+		if (this.frozen)
+			throw new IllegalStateException("Cannot add transformers after freezing");
+
+		this.transformers = ImmutableListMultimap.<String, Pair<MethodDescriptor, MethodNodeTransformer[]>>builder()
+			.putAll(this.transformers)
+			.put(md.name, new ImmutablePair<>(md, transformers))
+			.build();
 
 		return this;
 	}
@@ -70,6 +85,23 @@ public class MethodTransformer implements IClassTransformer
 		return this.addTransformer(new MethodDescriptor(null, name, desc), transformers);
 	}
 
+	public MethodTransformer setParallel(final @Nullable ForkJoinPool pool)
+	{
+		this.pool = pool;
+
+		return this;
+	}
+
+	@Override
+	public synchronized void freeze()
+	{
+		if (this.frozen)
+			return;
+
+		this.fingerprint = Fingerprints.hash(this);
+		this.frozen = true;
+	}
+
 	public static class Named extends MethodTransformer implements IClassTransformer.Named
 	{
 		private final String name;
@@ -86,13 +118,61 @@ public class MethodTransformer implements IClassTransformer
 		}
 	}
 
+	@Override
+	public boolean mayTransform(final ConstantPool cp)
+	{
+		for (final Pair<MethodDescriptor, MethodNodeTransformer[]> entry : this.transformers.values())
+		{
+			if (!entry.getKey().mayMatch(cp))
+				continue;
+
+			for (final MethodNodeTransformer transformer : entry.getValue())
+				if (transformer.mayTransform(cp))
+					return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public String getFingerprint()
+	{
+		final String fingerprint = this.fingerprint;
+
+		return fingerprint == null ? Fingerprints.hash(this) : fingerprint;
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+
+		for (final Pair<MethodDescriptor, MethodNodeTransformer[]> entry : this.transformers.values())
+		{
+			entry.getKey().fingerprint(hasher);
+			Fingerprints.putObject(hasher, entry.getValue());
+		}
+	}
+
 	@Override
 	public ClassVisitor createClassVisitor(final Logger logger, final boolean verify, final int api, final ClassVisitor cv)
+	{
+		return this.createClassVisitor(logger, verify, api, cv, new ClassContext(""));
+	}
+
+	@Override
+	public ClassVisitor createClassVisitor(final Logger logger, final boolean verify, final int api, final ClassVisitor cv, final ClassContext context)
 	{
 		return new ClassVisitor(api, cv)
 		{
 			private String internalName;
 
+			// One consistent snapshot per class, even if transformers are added while it is visited
+			private final ImmutableListMultimap<String, Pair<MethodDescriptor, MethodNodeTransformer[]>> transformers = MethodTransformer.this.transformers;
+
+			private final @Nullable ForkJoinPool pool = MethodTransformer.this.pool;
+			private final @Nullable List<PendingMethod> pending = this.pool == null ? null : new ArrayList<>();
+
 			@Override
 			public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces)
 			{
@@ -106,7 +186,9 @@ public class MethodTransformer implements IClassTransformer
 			{
 				final MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
 
-				final Collection<Pair<MethodDescriptor, MethodNodeTransformer[]>> candidates = MethodTransformer.this.transformers.get(name);
+				// Unmatched methods must get the downstream visitor back, so that ClassReader can copy them verbatim
+
+				final Collection<Pair<MethodDescriptor, MethodNodeTransformer[]>> candidates = this.transformers.get(name);
 
 				if (!candidates.isEmpty())
 				{
@@ -129,9 +211,11 @@ public class MethodTransformer implements IClassTransformer
 						return MethodTransformer.this.createMethodVisitor(
 							logger,
 							verify,
+							context,
 							this.internalName,
 							mv,
 							matches,
+							this.pending,
 							access,
 							name,
 							desc,
@@ -142,15 +226,26 @@ public class MethodTransformer implements IClassTransformer
 
 				return mv;
 			}
+
+			@Override
+			public void visitEnd()
+			{
+				if (this.pool != null && this.pending != null && !this.pending.isEmpty())
+					transformPending(logger, verify, context, this.internalName, this.pending, this.pool);
+
+				super.visitEnd();
+			}
 		};
 	}
 
 	private MethodVisitor createMethodVisitor(
 		final Logger logger,
 		final boolean verify,
+		final ClassContext classContext,
 		final String internalName,
 		final MethodVisitor mv_,
 		final List<MethodNodeTransformer[]> transformers,
+		final @Nullable List<PendingMethod> pending,
 		final int access,
 		final String name,
 		final String desc,
@@ -165,31 +260,171 @@ public class MethodTransformer implements IClassTransformer
 			{
 				super.visitEnd();
 
-				MethodNode methodNode = this;
-
-				try
+				if (pending != null)
 				{
-					for (final MethodNodeTransformer[] transformers_ : transformers)
-						for (final MethodNodeTransformer transformer : transformers_)
-							methodNode = transformer.transform(internalName, methodNode, logger);
+					pending.add(new PendingMethod(this, mv_, transformers));
+					return;
+				}
 
-					if (verify)
-					{
-						final Analyzer<BasicValue> analyzer = new Analyzer<>(new BasicVerifier());
+				final MethodNode methodNode;
 
-						analyzer.analyze(internalName, methodNode);
-					}
+				try
+				{
+					methodNode = transformMethod(logger, verify, classContext, internalName, this, transformers);
 				} catch (final MethodTransformerException | AnalyzerException e)
 				{
-					final String msg = "Error while modifying method " + this.name + " of class " + internalName;
-
-					logger.fatal(msg, e);
-
-					throw new IllegalArgumentException(msg, e);
+					throw fail(logger, internalName, this, e);
 				}
 
 				methodNode.accept(mv_);
 			}
 		};
 	}
+
+	private static MethodNode transformMethod(
+		final Logger logger,
+		final boolean verify,
+		final ClassContext classContext,
+		final String internalName,
+		MethodNode methodNode,
+		final List<MethodNodeTransformer[]> transformers
+	) throws MethodTransformerException, AnalyzerException
+	{
+		final String name = methodNode.name;
+		final String desc = methodNode.desc;
+
+		final MethodContext context = new MethodContext();
+
+		final TransformMetrics metrics = classContext.getActiveMetrics();
+		final List<Object> events = TransformEvents.isMethodEventEnabled() ? new ArrayList<>() : null;
+
+		for (final MethodNodeTransformer[] transformers_ : transformers)
+			for (final MethodNodeTransformer transformer : transformers_)
+			{
+				if (!transformer.mayTransform(methodNode, context))
+					continue;
+
+				final long start = metrics == null ? 0 : System.nanoTime();
+				final Object event = events == null ? null : TransformEvents.beginMethod(internalName, name + desc, ClassCache.fingerprint(transformer));
+
+				final MethodNode transformed = transformer.transform(internalName, methodNode, logger, context);
+
+				if (event != null)
+				{
+					TransformEvents.endMethod(event);
+					events.add(event);
+				}
+
+				if (metrics != null)
+					metrics.recordTransformer(transformer, classContext.name, name, desc, System.nanoTime() - start);
+
+				if (transformed != methodNode)
+					context.markModified();
+
+				methodNode = transformed;
+			}
+
+		if (context.isModified())
+			classContext.markModified();
+
+		boolean verified = false;
+
+		if (verify && context.isModified())
+		{
+			final long start = metrics == null ? 0 : System.nanoTime();
+
+			verified = classContext.verifier.verify(internalName, methodNode, logger);
+
+			if (verified)
+			{
+				if (metrics != null)
+					metrics.recordVerification(classContext.name, System.nanoTime() - start);
+
+				classContext.markVerified();
+			}
+		}
+
+		if (events != null)
+			for (final Object event : events)
+				TransformEvents.commitMethod(event, verified);
+
+		return methodNode;
+	}
+
+	private static void transformPending(
+		final Logger logger,
+		final boolean verify,
+		final ClassContext classContext,
+		final String internalName,
+		final List<PendingMethod> pending,
+		final ForkJoinPool pool
+	)
+	{
+		if (pending.size() == 1)
+			pending.get(0).transform(logger, verify, classContext, internalName);
+		else
+		{
+			final List<ForkJoinTask<?>> tasks = new ArrayList<>(pending.size());
+
+			for (final PendingMethod method : pending)
+				tasks.add(pool.submit(() -> method.transform(logger, verify, classContext, internalName)));
+
+			for (final ForkJoinTask<?> task : tasks)
+				task.join();
+		}
+
+		// Emit and report failures in visiting order, just like the serial path does
+		for (final PendingMethod method : pending)
+		{
+			final Throwable failure = method.failure;
+
+			if (failure instanceof MethodTransformerException || failure instanceof AnalyzerException)
+				throw fail(logger, internalName, method.methodNode, (Exception) failure);
+
+			if (failure instanceof RuntimeException)
+				throw (RuntimeException) failure;
+
+			if (failure instanceof Error)
+				throw (Error) failure;
+
+			method.result.accept(method.mv);
+		}
+	}
+
+	private static IllegalArgumentException fail(final Logger logger, final String internalName, final MethodNode methodNode, final Exception e)
+	{
+		final String msg = "Error while modifying method " + methodNode.name + " of class " + internalName;
+
+		logger.fatal(msg, e);
+
+		return new IllegalArgumentException(msg, e);
+	}
+
+	private static class PendingMethod
+	{
+		final MethodNode methodNode;
+		final MethodVisitor mv;
+		final List<MethodNodeTransformer[]> transformers;
+
+		MethodNode result;
+		@Nullable Throwable failure;
+
+		PendingMethod(final MethodNode methodNode, final MethodVisitor mv, final List<MethodNodeTransformer[]> transformers)
+		{
+			this.methodNode = methodNode;
+			this.mv = mv;
+			this.transformers = transformers;
+		}
+
+		void transform(final Logger logger, final boolean verify, final ClassContext classContext, final String internalName)
+		{
+			try
+			{
+				this.result = transformMethod(logger, verify, classContext, internalName, this.methodNode, this.transformers);
+			} catch (final Throwable t)
+			{
+				this.failure = t;
+			}
+		}
+	}
 }
@@ -31,9 +31,10 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import ocd.asmutil.cache.Fingerprinted;
 import ocd.asmutil.frame.TrackingValue;
 
-public interface SlicedInsnInjector
+public interface SlicedInsnInjector extends Fingerprinted
 {
 	void inject(
 		String className,
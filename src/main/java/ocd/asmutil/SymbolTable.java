@@ -0,0 +1,54 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+public class SymbolTable
+{
+	// Weak, so that symbols of unloaded classes can still be collected
+	private static final Interner<String> SYMBOLS = Interners.newWeakInterner();
+
+	public static String intern(final String symbol)
+	{
+		return SYMBOLS.intern(symbol);
+	}
+
+	@Nullable
+	public static String internNullable(final @Nullable String symbol)
+	{
+		return symbol == null ? null : SYMBOLS.intern(symbol);
+	}
+
+	// Interned symbols match by identity, and their cached hashes reject almost every mismatch without looking at the contents
+	public static boolean equals(final String symbol, final String other)
+	{
+		return symbol == other || symbol.hashCode() == other.hashCode() && symbol.equals(other);
+	}
+}
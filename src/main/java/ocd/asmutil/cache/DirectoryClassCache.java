@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+public class DirectoryClassCache implements ClassCache
+{
+	private final Path dir;
+
+	public DirectoryClassCache(final Path dir) throws IOException
+	{
+		this.dir = Files.createDirectories(dir);
+	}
+
+	private Path getFile(final String name)
+	{
+		// Hash the name, as class names may collide on case-insensitive file systems
+		return this.dir.resolve(Hashing.murmur3_128().hashString(name, StandardCharsets.UTF_8).toString());
+	}
+
+	@Override
+	public @Nullable byte[] get(final String name, final HashCode key) throws IOException
+	{
+		final byte[] data;
+
+		try
+		{
+			data = Files.readAllBytes(this.getFile(name));
+		} catch (final NoSuchFileException e)
+		{
+			return null;
+		}
+
+		final byte[] keyBytes = key.asBytes();
+
+		if (data.length < keyBytes.length || !Arrays.equals(keyBytes, Arrays.copyOf(data, keyBytes.length)))
+			return null;
+
+		return Arrays.copyOfRange(data, keyBytes.length, data.length);
+	}
+
+	@Override
+	public void put(final String name, final HashCode key, final byte[] transformedClass) throws IOException
+	{
+		final Path file = this.getFile(name);
+		final Path tmp = Files.createTempFile(this.dir, file.getFileName().toString(), ".tmp");
+
+		try
+		{
+			final byte[] keyBytes = key.asBytes();
+			final byte[] data = Arrays.copyOf(keyBytes, keyBytes.length + transformedClass.length);
+			System.arraycopy(transformedClass, 0, data, keyBytes.length, transformedClass.length);
+
+			Files.write(tmp, data);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+public class Fingerprints
+{
+	private static final HashCode MISSING = HashCode.fromInt(0);
+
+	// Lambda bodies are compiled into the defining class, so its bytecode stands in for the lambda's
+	private static final ClassValue<HashCode> BYTECODE = new ClassValue<HashCode>()
+	{
+		@Override
+		protected HashCode computeValue(final Class<?> type)
+		{
+			final String name = type.getName();
+			final int lambda = name.indexOf("$$Lambda$");
+			final String resource = (lambda == -1 ? name : name.substring(0, lambda)).replace('.', '/') + ".class";
+
+			final ClassLoader loader = type.getClassLoader();
+
+			try (final InputStream in = loader == null ? ClassLoader.getSystemResourceAsStream(resource) : loader.getResourceAsStream(resource))
+			{
+				return in == null ? MISSING : Hashing.murmur3_128().hashBytes(ByteStreams.toByteArray(in));
+			} catch (final IOException e)
+			{
+				return MISSING;
+			}
+		}
+	};
+
+	public static String hash(final Fingerprinted obj)
+	{
+		final Hasher hasher = Hashing.murmur3_128().newHasher();
+		obj.fingerprint(hasher);
+
+		return ClassCache.fingerprint(obj) + '@' + hasher.hash();
+	}
+
+	// Identifies the implementation, covering code changes without a rename
+	public static void putClass(final Hasher hasher, final Object obj)
+	{
+		hasher.putString(ClassCache.fingerprint(obj), StandardCharsets.UTF_8);
+		hasher.putBytes(BYTECODE.get(obj.getClass()).asBytes());
+	}
+
+	public static void putOpaque(final Hasher hasher, final Object obj)
+	{
+		putClass(hasher, obj);
+
+		// Values captured by a lambda are the only configuration it has
+		if (obj.getClass().isSynthetic())
+			for (final Field field : obj.getClass().getDeclaredFields())
+			{
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+
+				try
+				{
+					field.setAccessible(true);
+					putObject(hasher, field.get(obj));
+				} catch (final ReflectiveOperationException | RuntimeException e)
+				{
+					hasher.putInt(-1);
+				}
+			}
+	}
+
+	public static void putString(final Hasher hasher, final @Nullable String str)
+	{
+		hasher.putBoolean(str != null);
+
+		if (str != null)
+			hasher.putInt(str.length()).putString(str, StandardCharsets.UTF_8);
+	}
+
+	// Plain values hash by their type and string form, anything else must describe itself or counts as opaque
+	public static void putObject(final Hasher hasher, final @Nullable Object obj)
+	{
+		if (obj == null)
+			hasher.putInt(0);
+		else if (obj instanceof Fingerprinted)
+			((Fingerprinted) obj).fingerprint(hasher);
+		else if (obj instanceof Object[])
+		{
+			hasher.putInt(((Object[]) obj).length);
+
+			for (final Object element : (Object[]) obj)
+				putObject(hasher, element);
+		}
+		else if (obj instanceof String || obj instanceof Number || obj instanceof Boolean || obj instanceof Character || obj instanceof Enum || obj instanceof Type || obj instanceof Handle)
+		{
+			putString(hasher, obj.getClass().getName());
+			putString(hasher, obj.toString());
+		}
+		else
+			putOpaque(hasher, obj);
+	}
+}
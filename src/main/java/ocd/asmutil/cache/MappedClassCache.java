@@ -0,0 +1,525 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+// Single file store shared by all processes on a host. Lookups read straight from the mapping, while appends and
+// compactions hold an exclusive file lock.
+public class MappedClassCache implements ClassCache
+{
+	private static final int MAGIC = 0x4F434443;
+	private static final int FORMAT = 1;
+
+	// Header: magic, format, index capacity, entry count, end of appended data, session, superseded flag
+	private static final int MAGIC_OFFSET = 0;
+	private static final int FORMAT_OFFSET = 4;
+	private static final int CAPACITY_OFFSET = 8;
+	private static final int ENTRIES_OFFSET = 12;
+	private static final int DATA_END_OFFSET = 16;
+	private static final int SESSION_OFFSET = 24;
+	private static final int STALE_OFFSET = 28;
+	private static final int HEADER_SIZE = 64;
+
+	// Open addressing index slot, whose blob offset is written last and is 0 for empty slots
+	private static final int SLOT_KEY_HI = 0;
+	private static final int SLOT_KEY_LO = 8;
+	private static final int SLOT_OFFSET = 16;
+	private static final int SLOT_LENGTH = 24;
+	private static final int SLOT_SESSION = 28;
+	private static final int SLOT_SIZE = 32;
+
+	// Blobs repeat the key and carry a checksum, so that readers racing with a writer reject partial entries
+	private static final int BLOB_KEY_HI = 0;
+	private static final int BLOB_KEY_LO = 8;
+	private static final int BLOB_LENGTH = 16;
+	private static final int BLOB_CHECKSUM = 20;
+	private static final int BLOB_HEADER_SIZE = 24;
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final long GROWTH = 1 << 20;
+
+	// Every process opening the store starts a new session. Compaction drops entries unused for this many sessions.
+	private static final int MAX_AGE = 8;
+
+	// File locks are held per process, so instances on the same file must not request them concurrently
+	private static final ConcurrentMap<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+	private final Path path;
+	private final long maxBytes;
+	private final Object monitor;
+
+	private volatile Store store;
+
+	public MappedClassCache(final Path path, final long maxBytes) throws IOException
+	{
+		if (maxBytes > Integer.MAX_VALUE || maxBytes < 4 * getDataStart(INITIAL_CAPACITY))
+			throw new IllegalArgumentException("Store size must be between " + 4 * getDataStart(INITIAL_CAPACITY) + " and " + Integer.MAX_VALUE + ", got " + maxBytes);
+
+		this.path = path.toAbsolutePath();
+		this.maxBytes = maxBytes;
+
+		Files.createDirectories(this.path.getParent());
+
+		this.monitor = MONITORS.computeIfAbsent(this.path.getParent().toRealPath().resolve(this.path.getFileName()), key -> new Object());
+
+		synchronized (this.monitor)
+		{
+			this.store = this.open(true);
+		}
+	}
+
+	private static long getDataStart(final int capacity)
+	{
+		return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+	}
+
+	// Smallest index that stays below 3/8 load, so that the entry count may double before the next compaction
+	private static int getCapacity(final int entries)
+	{
+		int capacity = INITIAL_CAPACITY;
+
+		while (entries * 8L > capacity * 3L)
+			capacity <<= 1;
+
+		return capacity;
+	}
+
+	private static HashCode getSlotKey(final String name, final HashCode key)
+	{
+		return Hashing.murmur3_128().newHasher()
+			.putString(name, StandardCharsets.UTF_8)
+			.putBytes(key.asBytes())
+			.hash();
+	}
+
+	private static int checksum(final byte[] data)
+	{
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+
+		return (int) crc.getValue();
+	}
+
+	@Override
+	public @Nullable byte[] get(final String name, final HashCode key) throws IOException
+	{
+		final ByteBuffer slotKey = ByteBuffer.wrap(getSlotKey(name, key).asBytes());
+		final long hi = slotKey.getLong(0);
+		final long lo = slotKey.getLong(8);
+
+		final Store store = this.store;
+		final byte[] transformedClass = store.read(hi, lo);
+
+		// Other processes may have grown the file beyond our mapping or replaced it by compacting
+		if (transformedClass != null || !store.isStale() && store.buffer.capacity() >= store.getDataEnd())
+			return transformedClass;
+
+		return this.refresh(store).read(hi, lo);
+	}
+
+	@Override
+	public void put(final String name, final HashCode key, final byte[] transformedClass) throws IOException
+	{
+		// Large entries are not worth evicting half of the store for
+		if (BLOB_HEADER_SIZE + transformedClass.length > this.maxBytes / 4)
+			return;
+
+		final ByteBuffer slotKey = ByteBuffer.wrap(getSlotKey(name, key).asBytes());
+		final long hi = slotKey.getLong(0);
+		final long lo = slotKey.getLong(8);
+		final int checksum = checksum(transformedClass);
+
+		// The file lock only excludes other processes, threads of this one are excluded by the monitor
+		synchronized (this.monitor)
+		{
+			Store store = this.store;
+			boolean mayCompact = true;
+
+			while (true)
+			{
+				// Stores superseded before the attempt were compacted by someone else
+				final boolean stale = store.isStale();
+
+				if (!this.tryPut(store, hi, lo, transformedClass, checksum, mayCompact))
+					break;
+
+				// Give up rather than compacting again if the compacted store still has no room
+				mayCompact &= stale || !store.isStale();
+				store = this.refresh(store);
+			}
+		}
+	}
+
+	// Returns whether the store has to be refreshed and the entry written again
+	@SuppressWarnings("try")
+	private boolean tryPut(
+		final Store store,
+		final long hi,
+		final long lo,
+		final byte[] transformedClass,
+		final int checksum,
+		final boolean mayCompact
+	) throws IOException
+	{
+		try (final FileLock lock = store.channel.lock())
+		{
+			if (store.isStale() || store.buffer.capacity() < store.channel.size())
+				return true;
+
+			final int slot = store.find(hi, lo);
+
+			if (slot != -1 && store.getOffset(slot) != 0L)
+				return false;
+
+			final long blobSize = BLOB_HEADER_SIZE + transformedClass.length;
+			final long dataEnd = store.getDataEnd();
+
+			if (slot == -1 || (store.getEntries() + 1) * 4L > store.capacity * 3L || dataEnd + blobSize > this.maxBytes)
+				return mayCompact && this.compact(store);
+
+			if (dataEnd + blobSize > store.buffer.capacity())
+			{
+				// Extend the file and let the caller remap it
+				final long size = Math.min(this.maxBytes, Math.max(dataEnd + blobSize, store.buffer.capacity() + GROWTH));
+				store.channel.write(ByteBuffer.allocate(1), size - 1);
+
+				return true;
+			}
+
+			store.writeBlob((int) dataEnd, hi, lo, transformedClass, checksum);
+			store.writeSlot(slot, hi, lo, dataEnd, transformedClass.length, store.getSession());
+
+			store.buffer.putInt(ENTRIES_OFFSET, store.getEntries() + 1);
+			store.buffer.putLong(DATA_END_OFFSET, dataEnd + blobSize);
+
+			return false;
+		}
+	}
+
+	// Rewrites the recently used entries into a new file and marks the old one superseded. Called with the file lock held.
+	// Returns false if the file could not be replaced, e.g. on Windows while it is mapped, in which case the old one is kept.
+	private boolean compact(final Store store) throws IOException
+	{
+		final int session = store.getSession();
+		final List<Integer> live = new ArrayList<>();
+
+		for (int i = 0; i < store.capacity; ++i)
+		{
+			final int slot = HEADER_SIZE + i * SLOT_SIZE;
+
+			if (store.getOffset(slot) != 0L && session - store.getSlotSession(slot) <= MAX_AGE && store.isValid(slot))
+				live.add(slot);
+		}
+
+		// Keep the most recently used entries within half of the store, leaving room to grow
+		live.sort(Comparator.comparingInt(store::getSlotSession).reversed());
+
+		final List<Integer> kept = new ArrayList<>();
+		long keptBytes = 0;
+
+		for (final int slot : live)
+		{
+			final long blobSize = BLOB_HEADER_SIZE + store.getLength(slot);
+
+			if (getDataStart(getCapacity(kept.size() + 1)) + keptBytes + blobSize > this.maxBytes / 2)
+				break;
+
+			kept.add(slot);
+			keptBytes += blobSize;
+		}
+
+		final int capacity = getCapacity(kept.size());
+
+		final Path tmp = Files.createTempFile(this.path.getParent(), this.path.getFileName().toString(), ".tmp");
+
+		try
+		{
+			try (final FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				final Store compacted = new Store(channel, initialize(channel, capacity, session, Math.min(this.maxBytes, getDataStart(capacity) + keptBytes + GROWTH)));
+				long dataEnd = getDataStart(capacity);
+
+				for (final int slot : kept)
+				{
+					final int offset = (int) store.getOffset(slot);
+					final int blobSize = BLOB_HEADER_SIZE + store.getLength(slot);
+
+					final ByteBuffer src = store.buffer.duplicate();
+					src.limit(offset + blobSize).position(offset);
+
+					final ByteBuffer dst = compacted.buffer.duplicate();
+					dst.position((int) dataEnd);
+					dst.put(src);
+
+					final long hi = store.buffer.getLong(slot + SLOT_KEY_HI);
+					final long lo = store.buffer.getLong(slot + SLOT_KEY_LO);
+
+					compacted.writeSlot(compacted.find(hi, lo), hi, lo, dataEnd, store.getLength(slot), store.getSlotSession(slot));
+
+					dataEnd += blobSize;
+				}
+
+				compacted.buffer.putInt(ENTRIES_OFFSET, kept.size());
+				compacted.buffer.putLong(DATA_END_OFFSET, dataEnd);
+			}
+
+			try
+			{
+				Files.move(tmp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (final IOException e)
+			{
+				return false;
+			}
+		} finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+
+		store.buffer.putInt(STALE_OFFSET, 1);
+
+		return true;
+	}
+
+	private Store refresh(final Store store) throws IOException
+	{
+		synchronized (this.monitor)
+		{
+			if (this.store != store)
+				return this.store;
+
+			final Store refreshed;
+
+			if (store.isStale())
+			{
+				refreshed = this.open(false);
+
+				// Existing mappings stay valid, so concurrent readers may still finish on the old file
+				store.channel.close();
+			}
+			else
+				refreshed = new Store(store.channel, store.channel.map(FileChannel.MapMode.READ_WRITE, 0, store.channel.size()));
+
+			this.store = refreshed;
+
+			return refreshed;
+		}
+	}
+
+	@SuppressWarnings("try")
+	private Store open(final boolean newSession) throws IOException
+	{
+		final FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+		try (final FileLock lock = channel.lock())
+		{
+			MappedByteBuffer buffer = channel.size() < HEADER_SIZE ? null : channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+
+			if (buffer == null || buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(FORMAT_OFFSET) != FORMAT)
+				buffer = initialize(channel, INITIAL_CAPACITY, 1, Math.min(this.maxBytes, getDataStart(INITIAL_CAPACITY) + GROWTH));
+			else if (newSession)
+				buffer.putInt(SESSION_OFFSET, buffer.getInt(SESSION_OFFSET) + 1);
+
+			return new Store(channel, buffer);
+		} catch (final IOException | RuntimeException e)
+		{
+			channel.close();
+
+			throw e;
+		}
+	}
+
+	// Never shrinks the file, as other processes may still have it mapped
+	private static MappedByteBuffer initialize(final FileChannel channel, final int capacity, final int session, final long size) throws IOException
+	{
+		final long dataStart = getDataStart(capacity);
+		final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), size));
+
+		for (int i = 0; i < dataStart; i += 8)
+			buffer.putLong(i, 0L);
+
+		buffer.putInt(MAGIC_OFFSET, MAGIC);
+		buffer.putInt(FORMAT_OFFSET, FORMAT);
+		buffer.putInt(CAPACITY_OFFSET, capacity);
+		buffer.putLong(DATA_END_OFFSET, dataStart);
+		buffer.putInt(SESSION_OFFSET, session);
+
+		return buffer;
+	}
+
+	private static class Store
+	{
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		final int capacity;
+
+		Store(final FileChannel channel, final MappedByteBuffer buffer)
+		{
+			this.channel = channel;
+			this.buffer = buffer;
+			this.capacity = buffer.getInt(CAPACITY_OFFSET);
+		}
+
+		boolean isStale()
+		{
+			return this.buffer.getInt(STALE_OFFSET) != 0;
+		}
+
+		int getEntries()
+		{
+			return this.buffer.getInt(ENTRIES_OFFSET);
+		}
+
+		long getDataEnd()
+		{
+			return this.buffer.getLong(DATA_END_OFFSET);
+		}
+
+		int getSession()
+		{
+			return this.buffer.getInt(SESSION_OFFSET);
+		}
+
+		long getOffset(final int slot)
+		{
+			return this.buffer.getLong(slot + SLOT_OFFSET);
+		}
+
+		int getLength(final int slot)
+		{
+			return this.buffer.getInt(slot + SLOT_LENGTH);
+		}
+
+		int getSlotSession(final int slot)
+		{
+			return this.buffer.getInt(slot + SLOT_SESSION);
+		}
+
+		// Slot holding the key or the empty slot it would be inserted at, -1 if the index is full
+		int find(final long hi, final long lo)
+		{
+			final int mask = this.capacity - 1;
+
+			for (int i = 0, index = (int) lo & mask; i < this.capacity; ++i, index = (index + 1) & mask)
+			{
+				final int slot = HEADER_SIZE + index * SLOT_SIZE;
+
+				if (this.getOffset(slot) == 0L)
+					return slot;
+
+				if (this.buffer.getLong(slot + SLOT_KEY_HI) == hi && this.buffer.getLong(slot + SLOT_KEY_LO) == lo)
+					return slot;
+			}
+
+			return -1;
+		}
+
+		boolean isValid(final int slot)
+		{
+			return this.read(slot, this.buffer.getLong(slot + SLOT_KEY_HI), this.buffer.getLong(slot + SLOT_KEY_LO)) != null;
+		}
+
+		@Nullable
+		byte[] read(final long hi, final long lo)
+		{
+			final int slot = this.find(hi, lo);
+
+			if (slot == -1 || this.getOffset(slot) == 0L)
+				return null;
+
+			final byte[] data = this.read(slot, hi, lo);
+
+			// Only dirty the page if the entry was not used during this session yet
+			if (data != null && this.getSlotSession(slot) != this.getSession())
+				this.buffer.putInt(slot + SLOT_SESSION, this.getSession());
+
+			return data;
+		}
+
+		@Nullable
+		private byte[] read(final int slot, final long hi, final long lo)
+		{
+			final long offset = this.getOffset(slot);
+			final int length = this.getLength(slot);
+
+			if (offset < getDataStart(this.capacity) || length < 0 || offset + BLOB_HEADER_SIZE + length > this.buffer.capacity())
+				return null;
+
+			final int blob = (int) offset;
+
+			if (this.buffer.getLong(blob + BLOB_KEY_HI) != hi || this.buffer.getLong(blob + BLOB_KEY_LO) != lo || this.buffer.getInt(blob + BLOB_LENGTH) != length)
+				return null;
+
+			final byte[] data = new byte[length];
+
+			final ByteBuffer src = this.buffer.duplicate();
+			src.position(blob + BLOB_HEADER_SIZE);
+			src.get(data);
+
+			return checksum(data) == this.buffer.getInt(blob + BLOB_CHECKSUM) ? data : null;
+		}
+
+		void writeBlob(final int blob, final long hi, final long lo, final byte[] data, final int checksum)
+		{
+			this.buffer.putLong(blob + BLOB_KEY_HI, hi);
+			this.buffer.putLong(blob + BLOB_KEY_LO, lo);
+			this.buffer.putInt(blob + BLOB_LENGTH, data.length);
+			this.buffer.putInt(blob + BLOB_CHECKSUM, checksum);
+
+			final ByteBuffer dst = this.buffer.duplicate();
+			dst.position(blob + BLOB_HEADER_SIZE);
+			dst.put(data);
+		}
+
+		void writeSlot(final int slot, final long hi, final long lo, final long offset, final int length, final int session)
+		{
+			this.buffer.putLong(slot + SLOT_KEY_HI, hi);
+			this.buffer.putLong(slot + SLOT_KEY_LO, lo);
+			this.buffer.putInt(slot + SLOT_LENGTH, length);
+			this.buffer.putInt(slot + SLOT_SESSION, session);
+			this.buffer.putLong(slot + SLOT_OFFSET, offset);
+		}
+	}
+}
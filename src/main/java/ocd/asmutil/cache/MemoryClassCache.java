@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.cache;
+
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+
+public class MemoryClassCache implements ClassCache
+{
+	// Rough per-entry cost of the key, the array header and the cache's own bookkeeping
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final Cache<Pair<String, HashCode>, byte[]> cache;
+	private final @Nullable ClassCache backing;
+
+	public MemoryClassCache(final long maxBytes, final @Nullable ClassCache backing)
+	{
+		this.cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxBytes)
+			.<Pair<String, HashCode>, byte[]>weigher((key, transformedClass) -> transformedClass.length + ENTRY_OVERHEAD)
+			.build();
+		this.backing = backing;
+	}
+
+	public MemoryClassCache(final long maxBytes)
+	{
+		this(maxBytes, null);
+	}
+
+	// Class loaders own the arrays they are handed, so the cache only ever gives out copies of the ones it keeps
+	@Override
+	public @Nullable byte[] get(final String name, final HashCode key) throws IOException
+	{
+		final Pair<String, HashCode> cacheKey = new ImmutablePair<>(name, key);
+		final byte[] cachedClass = this.cache.getIfPresent(cacheKey);
+
+		if (cachedClass != null)
+			return cachedClass.clone();
+
+		if (this.backing == null)
+			return null;
+
+		final byte[] storedClass = this.backing.get(name, key);
+
+		if (storedClass != null)
+			this.cache.put(cacheKey, storedClass.clone());
+
+		return storedClass;
+	}
+
+	@Override
+	public void put(final String name, final HashCode key, final byte[] transformedClass) throws IOException
+	{
+		this.cache.put(new ImmutablePair<>(name, key), transformedClass.clone());
+
+		if (this.backing != null)
+			this.backing.put(name, key, transformedClass);
+	}
+}
@@ -25,6 +25,7 @@
 
 package ocd.asmutil.frame;
 
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -57,7 +58,7 @@ public class FrameUtil
 			final Type[] args = Type.getArgumentTypes(methodNode.desc);
 			final boolean staticAcc = (methodNode.access & Opcodes.ACC_STATIC) != 0;
 
-			final Frame<V> frame = new DynamicFrame<>(methodNode.maxLocals, 0);
+			final Frame<V> frame = new DynamicFrame<>(methodNode.maxLocals, methodNode.maxStack);
 			frame.setReturn(retType);
 
 			if (!staticAcc)
@@ -69,22 +70,37 @@ public class FrameUtil
 			return frame;
 		}
 
+		final Frame<V> frame = new DynamicFrame<>(methodNode.maxLocals, methodNode.maxStack);
+		frame.setReturn(retType);
+
+		loadFrame(frameNode, frame, methodNode, interpreter);
+
+		return frame;
+	}
+
+	private static <V extends Value> void loadFrame(
+		final FrameNode frameNode,
+		final Frame<V> frame,
+		final MethodNode methodNode,
+		final Interpreter<V> interpreter
+	) throws MethodTransformerException
+	{
 		if (frameNode.type != Opcodes.F_NEW)
 			throw new MethodTransformerException("Require expanded frames", methodNode, frameNode);
 
 		final List<Object> locals = frameNode.local;
 		final List<Object> stack = frameNode.stack;
 
-		final Frame<V> frame = new DynamicFrame<>(methodNode.maxLocals, methodNode.maxStack);
-		frame.setReturn(retType);
-
 		for (int i = 0; i < locals.size(); ++i)
 			frame.setLocal(i, getType(locals.get(i), interpreter));
 
+		for (int i = locals.size(); i < frame.getLocals(); ++i)
+			frame.setLocal(i, null);
+
+		frame.clearStack();
+
 		for (final Object type : stack)
 			frame.push(getType(type, interpreter));
-
-		return frame;
 	}
 
 	public static <V extends Value> void execute(
@@ -97,7 +113,7 @@ public class FrameUtil
 	{
 		if (insn instanceof FrameNode)
 		{
-			frame.init(FrameUtil.getFrame((FrameNode) insn, className, methodNode, retType, interpreter));
+			loadFrame((FrameNode) insn, frame, methodNode, interpreter);
 			frame.setReturn(retType);
 		}
 		else if (!(insn instanceof LabelNode) && !(insn instanceof LineNumberNode))
@@ -128,27 +144,21 @@ public class FrameUtil
 		return interpreter.newValue(null);
 	}
 
-	private static <V extends Value> void copyFrame(final Frame<? extends V> srcFrame, final Frame<V> targetFrame, final V retVal)
-	{
-		targetFrame.setReturn(retVal);
-
-		for (int i = 0; i < srcFrame.getLocals(); ++i)
-			targetFrame.setLocal(i, srcFrame.getLocal(i));
-
-		for (int i = 0; i < srcFrame.getStackSize(); ++i)
-			targetFrame.push(srcFrame.getStack(i));
-	}
-
 	public static class DynamicFrame<V extends Value> extends Frame<V>
 	{
-		private Frame<V> frame;
-		V reVal;
+		private V[] locals;
+		private V[] stack;
+		private int top;
 
+		@Nullable V reVal;
+
+		@SuppressWarnings("unchecked")
 		public DynamicFrame(final int nLocals, final int nStack)
 		{
 			super(0, 0);
 
-			this.frame = new Frame<>(nLocals, nStack);
+			this.locals = (V[]) new Value[nLocals];
+			this.stack = (V[]) new Value[Math.max(nStack, 4)];
 		}
 
 		public DynamicFrame(final Frame<? extends V> src, final @Nullable V retVal)
@@ -161,97 +171,197 @@ public class FrameUtil
 		@Override
 		public Frame<V> init(final Frame<? extends V> src)
 		{
-			this.frame = new Frame<>(Math.max(this.getLocals(), src.getLocals()), Math.max(this.getMaxStackSize(), src.getMaxStackSize()));
-			copyFrame(src, this.frame, this.reVal);
+			// Reuses the existing storage, only growing it when the source frame does not fit
+			final int nLocals = src.getLocals();
+
+			if (nLocals > this.locals.length)
+				this.locals = Arrays.copyOf(this.locals, nLocals);
+
+			final int stackSize = src.getStackSize();
+
+			this.ensureStackCapacity(stackSize);
+
+			if (src instanceof DynamicFrame)
+			{
+				final DynamicFrame<? extends V> frame = (DynamicFrame<? extends V>) src;
+
+				System.arraycopy(frame.locals, 0, this.locals, 0, nLocals);
+				System.arraycopy(frame.stack, 0, this.stack, 0, stackSize);
+			}
+			else
+			{
+				for (int i = 0; i < nLocals; ++i)
+					this.locals[i] = src.getLocal(i);
+
+				for (int i = 0; i < stackSize; ++i)
+					this.stack[i] = src.getStack(i);
+			}
+
+			Arrays.fill(this.locals, nLocals, this.locals.length, null);
+
+			if (stackSize < this.top)
+				Arrays.fill(this.stack, stackSize, this.top, null);
 
-			return this.frame;
+			this.top = stackSize;
+
+			return this;
+		}
+
+		private void ensureStackCapacity(final int size)
+		{
+			if (size > this.stack.length)
+				this.stack = Arrays.copyOf(this.stack, Math.max(size, this.stack.length * 2));
 		}
 
 		@Override
-		public void setReturn(final V v)
+		public void setReturn(final @Nullable V v)
 		{
 			this.reVal = v;
 			super.setReturn(v);
-			this.frame.setReturn(v);
 		}
 
 		@Override
 		public int getLocals()
 		{
-			return this.frame.getLocals();
+			return this.locals.length;
 		}
 
 		@Override
 		public int getMaxStackSize()
 		{
-			return this.frame.getMaxStackSize();
+			return this.stack.length;
 		}
 
 		@Override
 		public V getLocal(final int i) throws IndexOutOfBoundsException
 		{
-			return this.frame.getLocal(i);
+			if (i >= this.locals.length)
+				throw new IndexOutOfBoundsException("Trying to access an inexistant local variable");
+
+			return this.locals[i];
 		}
 
 		@Override
 		public void setLocal(final int i, final V value) throws IndexOutOfBoundsException
 		{
-			this.frame.setLocal(i, value);
+			if (i >= this.locals.length)
+				throw new IndexOutOfBoundsException("Trying to access an inexistant local variable " + i);
+
+			this.locals[i] = value;
 		}
 
 		@Override
 		public int getStackSize()
 		{
-			return this.frame.getStackSize();
+			return this.top;
 		}
 
 		@Override
 		public V getStack(final int i) throws IndexOutOfBoundsException
 		{
-			return this.frame.getStack(i);
+			if (i >= this.top)
+				throw new IndexOutOfBoundsException("Trying to access an inexistant stack element " + i);
+
+			return this.stack[i];
 		}
 
 		@Override
 		public void clearStack()
 		{
-			this.frame.clearStack();
+			Arrays.fill(this.stack, 0, this.top, null);
+			this.top = 0;
 		}
 
 		@Override
 		public V pop() throws IndexOutOfBoundsException
 		{
-			return this.frame.pop();
+			if (this.top == 0)
+				throw new IndexOutOfBoundsException("Cannot pop operand off an empty stack.");
+
+			final V value = this.stack[--this.top];
+			this.stack[this.top] = null;
+
+			return value;
 		}
 
 		@Override
 		public void push(final V value) throws IndexOutOfBoundsException
 		{
-			if (this.getStackSize() == this.getMaxStackSize())
-			{
-				final Frame<V> frame = this.frame;
-				this.frame = new Frame<>(this.getLocals(), this.getMaxStackSize() + 1);
-				copyFrame(frame, this.frame, this.reVal);
-			}
+			this.ensureStackCapacity(this.top + 1);
 
-			this.frame.push(value);
+			this.stack[this.top++] = value;
 		}
 
 		@Override
 		public boolean merge(final Frame<? extends V> frame, final Interpreter<V> interpreter) throws AnalyzerException
 		{
-			return this.frame.merge(frame, interpreter);
+			if (this.top != frame.getStackSize())
+				throw new AnalyzerException(null, "Incompatible stack heights");
+
+			boolean changes = false;
+
+			// Slots the other frame does not have are uninitialized there
+			final int nLocals = Math.min(this.locals.length, frame.getLocals());
+			final V uninitialized = nLocals < this.locals.length ? interpreter.newValue(null) : null;
+
+			for (int i = 0; i < this.locals.length; ++i)
+			{
+				final V v = interpreter.merge(this.locals[i], i < nLocals ? frame.getLocal(i) : uninitialized);
+
+				if (!v.equals(this.locals[i]))
+				{
+					this.locals[i] = v;
+					changes = true;
+				}
+			}
+
+			for (int i = 0; i < this.top; ++i)
+			{
+				final V v = interpreter.merge(this.stack[i], frame.getStack(i));
+
+				if (!v.equals(this.stack[i]))
+				{
+					this.stack[i] = v;
+					changes = true;
+				}
+			}
+
+			return changes;
 		}
 
 		@Override
 		public boolean merge(final Frame<? extends V> frame, final boolean[] access)
 		{
-			return this.frame.merge(frame, access);
+			boolean changes = false;
+
+			for (int i = 0; i < Math.min(this.locals.length, frame.getLocals()); ++i)
+			{
+				final V v = frame.getLocal(i);
+
+				if (!access[i] && !v.equals(this.locals[i]))
+				{
+					this.locals[i] = v;
+					changes = true;
+				}
+			}
+
+			return changes;
 		}
 
 		@Override
 		public String toString()
 		{
-			return this.frame.toString();
+			final StringBuilder sb = new StringBuilder();
+
+			for (int i = 0; i < this.locals.length; ++i)
+				sb.append(this.locals[i]);
+
+			sb.append(' ');
+
+			for (int i = 0; i < this.top; ++i)
+				sb.append(this.stack[i]);
+
+			return sb.toString();
 		}
 	}
 }
@@ -25,7 +25,10 @@
 
 package ocd.asmutil.frame;
 
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import javax.annotation.Nullable;
 
 import org.objectweb.asm.Opcodes;
@@ -87,16 +90,29 @@ public class TrackingValue extends BasicValue
 
 	public static class TrackingInterpreter extends Interpreter<TrackingValue>
 	{
+		private static final TrackingValue NO_VALUE = new TrackingValue(Type.VOID_TYPE, null);
+
 		private final Interpreter<BasicValue> interpreter = new TypedInterpreter();
 
+		// Results only depend on the instruction (and for copies on the input type), so they can be reused across simulations.
+		// Instructions must not be modified in place while interned values for them are alive.
+		private final @Nullable Map<AbstractInsnNode, TrackingValue> values;
+
 		public TrackingInterpreter()
 		{
-			super(Opcodes.ASM5);
+			this(Opcodes.ASM5);
 		}
 
 		public TrackingInterpreter(final int api)
+		{
+			this(api, false);
+		}
+
+		public TrackingInterpreter(final int api, final boolean intern)
 		{
 			super(api);
+
+			this.values = intern ? new IdentityHashMap<>() : null;
 		}
 
 		@Override
@@ -134,40 +150,76 @@ public class TrackingValue extends BasicValue
 			return val == null ? null : new TrackingValue(val.getType(), insn);
 		}
 
+		private @Nullable TrackingValue getInterned(final AbstractInsnNode insn)
+		{
+			return this.values == null ? null : this.values.get(insn);
+		}
+
+		private @Nullable TrackingValue intern(final AbstractInsnNode insn, final @Nullable BasicValue val)
+		{
+			final TrackingValue value = newTrackingValue(val, insn);
+
+			if (this.values != null)
+				this.values.put(insn, value == null ? NO_VALUE : value);
+
+			return value;
+		}
+
+		private static @Nullable TrackingValue unwrap(final TrackingValue value)
+		{
+			return value == NO_VALUE ? null : value;
+		}
+
 		@Override
 		public TrackingValue newOperation(final AbstractInsnNode insn) throws AnalyzerException
 		{
-			return newTrackingValue(this.interpreter.newOperation(insn), insn);
+			final TrackingValue interned = this.getInterned(insn);
+
+			return interned != null ? unwrap(interned) : this.intern(insn, this.interpreter.newOperation(insn));
 		}
 
 		@Override
 		public TrackingValue copyOperation(final AbstractInsnNode insn, final TrackingValue value) throws AnalyzerException
 		{
-			return newTrackingValue(this.interpreter.copyOperation(insn, value), insn);
+			final TrackingValue interned = this.getInterned(insn);
+
+			if (interned != null && Objects.equals(interned.getType(), value.getType()))
+				return interned;
+
+			// BasicInterpreter returns copied values unchanged, so there is no need to ask it
+			return this.intern(insn, value);
 		}
 
 		@Override
 		public TrackingValue unaryOperation(final AbstractInsnNode insn, final TrackingValue value) throws AnalyzerException
 		{
-			return newTrackingValue(this.interpreter.unaryOperation(insn, value), insn);
+			final TrackingValue interned = this.getInterned(insn);
+
+			return interned != null ? unwrap(interned) : this.intern(insn, this.interpreter.unaryOperation(insn, value));
 		}
 
 		@Override
 		public TrackingValue binaryOperation(final AbstractInsnNode insn, final TrackingValue value1, final TrackingValue value2) throws AnalyzerException
 		{
-			return newTrackingValue(this.interpreter.binaryOperation(insn, value1, value2), insn);
+			final TrackingValue interned = this.getInterned(insn);
+
+			return interned != null ? unwrap(interned) : this.intern(insn, this.interpreter.binaryOperation(insn, value1, value2));
 		}
 
 		@Override
 		public TrackingValue ternaryOperation(final AbstractInsnNode insn, final TrackingValue value1, final TrackingValue value2, final TrackingValue value3) throws AnalyzerException
 		{
-			return newTrackingValue(this.interpreter.ternaryOperation(insn, value1, value2, value3), insn);
+			final TrackingValue interned = this.getInterned(insn);
+
+			return interned != null ? unwrap(interned) : this.intern(insn, this.interpreter.ternaryOperation(insn, value1, value2, value3));
 		}
 
 		@Override
 		public TrackingValue naryOperation(final AbstractInsnNode insn, final List<? extends TrackingValue> values) throws AnalyzerException
 		{
-			return newTrackingValue(this.interpreter.naryOperation(insn, values), insn);
+			final TrackingValue interned = this.getInterned(insn);
+
+			return interned != null ? unwrap(interned) : this.intern(insn, this.interpreter.naryOperation(insn, values));
 		}
 
 		@Override
@@ -35,7 +35,10 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import com.google.common.hash.Hasher;
+
 import ocd.asmutil.InsnInjector;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.frame.TrackingValue;
 
 public class InvokeInjector implements InsnInjector
@@ -103,6 +106,16 @@ public class InvokeInjector implements InsnInjector
 		frame.execute(invokeInsn, interpreter);
 	}
 
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		Fingerprints.putString(hasher, this.md.owner);
+		Fingerprints.putString(hasher, this.md.name);
+		Fingerprints.putString(hasher, this.md.desc);
+		hasher.putInt(this.md.opcode).putBoolean(this.md.iface);
+	}
+
 	public static class MethodDescriptor
 	{
 		public final @Nullable String owner;
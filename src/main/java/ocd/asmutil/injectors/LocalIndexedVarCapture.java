@@ -34,7 +34,10 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import com.google.common.hash.Hasher;
+
 import ocd.asmutil.InsnInjector;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.frame.TrackingValue;
 
 public class LocalIndexedVarCapture implements InsnInjector
@@ -68,4 +71,12 @@ public class LocalIndexedVarCapture implements InsnInjector
 
 		frame.execute(varInsn, interpreter);
 	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		Fingerprints.putString(hasher, this.type.getDescriptor());
+		hasher.putInt(this.index);
+	}
 }
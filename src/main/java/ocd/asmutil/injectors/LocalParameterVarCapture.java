@@ -37,8 +37,11 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import com.google.common.hash.Hasher;
+
 import ocd.asmutil.MethodTransformerException;
 import ocd.asmutil.SlicedInsnInjector;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.frame.FrameUtil;
 import ocd.asmutil.frame.FrameUtil.DynamicFrame;
 import ocd.asmutil.frame.TrackingValue;
@@ -82,6 +85,14 @@ public class LocalParameterVarCapture implements SlicedInsnInjector
 		frameEnd.execute(varInsn, interpreter);
 	}
 
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		hasher.putInt(this.index);
+		this.md.fingerprint(hasher);
+	}
+
 	public static VarInsnNode getVar(
 		final int index,
 		final MethodDescriptor md,
@@ -34,8 +34,11 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import com.google.common.hash.Hasher;
+
 import ocd.asmutil.InsnInjector;
 import ocd.asmutil.MethodTransformerException;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.frame.TrackingValue;
 
 public class LocalTypedVarCapture implements InsnInjector
@@ -108,6 +111,13 @@ public class LocalTypedVarCapture implements InsnInjector
 		frameEnd.execute(varInsn, interpreter);
 	}
 
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		Fingerprints.putString(hasher, this.desc);
+	}
+
 	public static int getVar(
 		final int opcode,
 		final String desc,
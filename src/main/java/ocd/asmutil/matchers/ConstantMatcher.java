@@ -25,10 +25,19 @@
 
 package ocd.asmutil.matchers;
 
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
 import org.objectweb.asm.tree.LdcInsnNode;
 
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
 import ocd.asmutil.InjectionLocator.Simple;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.cache.Fingerprints;
 
 public class ConstantMatcher implements Simple
 {
@@ -49,4 +58,86 @@ public class ConstantMatcher implements Simple
 
 		return ldcInsnNode.cst.equals(this.cst);
 	}
+
+	@Override
+	public boolean mayMatch(final ConstantPool cp)
+	{
+		return cp.containsConstant(this.cst);
+	}
+
+	@Override
+	public boolean mayMatch(final int opcode)
+	{
+		return opcode == Opcodes.LDC;
+	}
+
+	@Override
+	public boolean mayMatch(final InsnIndex index)
+	{
+		for (final AbstractInsnNode insn : index.getByConstant(this.cst))
+			if (insn.getOpcode() == Opcodes.LDC)
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		Fingerprints.putObject(hasher, this.cst);
+	}
+
+	// Value pushed by any of the constant instructions, boxed the same way as LdcInsnNode.cst
+	@Nullable
+	public static Object getConstant(final AbstractInsnNode insn)
+	{
+		final int opcode = insn.getOpcode();
+
+		switch (opcode)
+		{
+		case Opcodes.LDC:
+			return ((LdcInsnNode) insn).cst;
+		case Opcodes.BIPUSH:
+		case Opcodes.SIPUSH:
+			return ((IntInsnNode) insn).operand;
+		case Opcodes.LCONST_0:
+		case Opcodes.LCONST_1:
+			return (long) (opcode - Opcodes.LCONST_0);
+		case Opcodes.FCONST_0:
+		case Opcodes.FCONST_1:
+		case Opcodes.FCONST_2:
+			return (float) (opcode - Opcodes.FCONST_0);
+		case Opcodes.DCONST_0:
+		case Opcodes.DCONST_1:
+			return (double) (opcode - Opcodes.DCONST_0);
+		default:
+			if (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.ICONST_5)
+				return opcode - Opcodes.ICONST_0;
+
+			return null;
+		}
+	}
+
+	// Whether a compiler may push the constant without a constant pool entry
+	static boolean isInlined(final Object cst)
+	{
+		if (cst instanceof Integer)
+		{
+			final int value = (Integer) cst;
+
+			return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+		}
+
+		if (cst instanceof Long)
+			return (Long) cst == 0L || (Long) cst == 1L;
+
+		if (cst instanceof Float)
+			return (Float) cst == 0F || (Float) cst == 1F || (Float) cst == 2F;
+
+		if (cst instanceof Double)
+			return (Double) cst == 0D || (Double) cst == 1D;
+
+		return false;
+	}
 }
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.matchers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
+import ocd.asmutil.InjectionLocator.Simple;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.cache.Fingerprints;
+
+public class ConstantSetMatcher implements Simple
+{
+	private final Object[] constants;
+	private final Map<Object, Integer> indices = new HashMap<>();
+
+	// Indexed by opcode + 1
+	private final boolean[] opcodes = new boolean[257];
+
+	public ConstantSetMatcher(final Object... constants)
+	{
+		this.constants = constants;
+
+		for (int i = 0; i < constants.length; ++i)
+		{
+			final Object cst = constants[i];
+
+			if (this.indices.putIfAbsent(cst, i) != null)
+				throw new IllegalArgumentException("Duplicate constant: " + cst);
+
+			if (cst instanceof Integer)
+			{
+				Arrays.fill(this.opcodes, Opcodes.ICONST_M1 + 1, Opcodes.ICONST_5 + 2, true);
+				this.opcodes[Opcodes.BIPUSH + 1] = true;
+				this.opcodes[Opcodes.SIPUSH + 1] = true;
+			}
+			else if (cst instanceof Long)
+				Arrays.fill(this.opcodes, Opcodes.LCONST_0 + 1, Opcodes.LCONST_1 + 2, true);
+			else if (cst instanceof Float)
+				Arrays.fill(this.opcodes, Opcodes.FCONST_0 + 1, Opcodes.FCONST_2 + 2, true);
+			else if (cst instanceof Double)
+				Arrays.fill(this.opcodes, Opcodes.DCONST_0 + 1, Opcodes.DCONST_1 + 2, true);
+
+			this.opcodes[Opcodes.LDC + 1] = true;
+		}
+	}
+
+	public ConstantSetMatcher(final Collection<?> constants)
+	{
+		this(constants.toArray());
+	}
+
+	@Override
+	public boolean test(final AbstractInsnNode insn)
+	{
+		return this.indexOf(insn) >= 0;
+	}
+
+	// Index of the matched constant in the order passed to the constructor, or -1
+	public int indexOf(final AbstractInsnNode insn)
+	{
+		if (!this.opcodes[insn.getOpcode() + 1])
+			return -1;
+
+		final Object cst = ConstantMatcher.getConstant(insn);
+
+		if (cst == null)
+			return -1;
+
+		final Integer index = this.indices.get(cst);
+
+		return index == null ? -1 : index;
+	}
+
+	@Nullable
+	public Object getMatch(final AbstractInsnNode insn)
+	{
+		final int index = this.indexOf(insn);
+
+		return index < 0 ? null : this.constants[index];
+	}
+
+	@Override
+	public boolean mayMatch(final ConstantPool cp)
+	{
+		for (final Object cst : this.constants)
+			if (ConstantMatcher.isInlined(cst))
+				return true;
+
+		return cp.containsAnyConstant(this.indices.keySet());
+	}
+
+	@Override
+	public boolean mayMatch(final InsnIndex index)
+	{
+		for (final Object cst : this.constants)
+			for (final AbstractInsnNode insn : index.getByConstant(cst))
+				if (this.opcodes[insn.getOpcode() + 1])
+					return true;
+
+		return false;
+	}
+
+	@Override
+	public boolean mayMatch(final int opcode)
+	{
+		return this.opcodes[opcode + 1];
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		Fingerprints.putObject(hasher, this.constants);
+	}
+}
@@ -30,7 +30,13 @@ import javax.annotation.Nullable;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
 import ocd.asmutil.InjectionLocator.Simple;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.SymbolTable;
+import ocd.asmutil.cache.Fingerprints;
 
 public class FieldMatcher implements Simple
 {
@@ -62,6 +68,36 @@ public class FieldMatcher implements Simple
 		return this.fd.matches(insn);
 	}
 
+	@Override
+	public boolean mayMatch(final ConstantPool cp)
+	{
+		return this.fd.mayMatch(cp);
+	}
+
+	@Override
+	public boolean mayMatch(final int opcode)
+	{
+		return opcode == this.opcode;
+	}
+
+	@Override
+	public boolean mayMatch(final InsnIndex index)
+	{
+		for (final AbstractInsnNode insn : index.getByName(this.fd.name))
+			if (this.test(insn))
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		hasher.putInt(this.opcode);
+		this.fd.fingerprint(hasher);
+	}
+
 	public static class FieldDescriptor
 	{
 		public final @Nullable String owner;
@@ -70,9 +106,9 @@ public class FieldMatcher implements Simple
 
 		public FieldDescriptor(final @Nullable String owner, final String name, final @Nullable String desc)
 		{
-			this.owner = owner == null ? null : owner.replace('.', '/');
-			this.name = name;
-			this.desc = desc;
+			this.owner = owner == null ? null : SymbolTable.intern(owner.replace('.', '/'));
+			this.name = SymbolTable.intern(name);
+			this.desc = SymbolTable.internNullable(desc);
 		}
 
 		public FieldDescriptor(final String name, @Nullable final String desc)
@@ -87,13 +123,31 @@ public class FieldMatcher implements Simple
 
 		public boolean matches(final String owner, final String name, final String desc)
 		{
-			if (this.owner != null && !this.owner.equals(owner))
+			if (!SymbolTable.equals(this.name, name))
+				return false;
+
+			if (this.owner != null && !SymbolTable.equals(this.owner, owner))
+				return false;
+
+			return this.desc == null || SymbolTable.equals(this.desc, desc);
+		}
+
+		public boolean mayMatch(final ConstantPool cp)
+		{
+			if (this.owner != null && !cp.containsUtf8(this.owner))
 				return false;
 
-			if (this.desc != null && !this.desc.equals(desc))
+			if (this.desc != null && !cp.containsUtf8(this.desc))
 				return false;
 
-			return this.name.equals(name);
+			return cp.containsUtf8(this.name);
+		}
+
+		public void fingerprint(final Hasher hasher)
+		{
+			Fingerprints.putString(hasher, this.owner);
+			Fingerprints.putString(hasher, this.name);
+			Fingerprints.putString(hasher, this.desc);
 		}
 
 		public boolean matches(final FieldInsnNode field)
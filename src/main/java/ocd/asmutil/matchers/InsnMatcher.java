@@ -27,7 +27,11 @@ package ocd.asmutil.matchers;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
 
+import com.google.common.hash.Hasher;
+
 import ocd.asmutil.InjectionLocator.Simple;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.cache.Fingerprints;
 
 public class InsnMatcher implements Simple
 {
@@ -43,4 +47,23 @@ public class InsnMatcher implements Simple
 	{
 		return this.opcode == insn.getOpcode();
 	}
+
+	@Override
+	public boolean mayMatch(final int opcode)
+	{
+		return opcode == this.opcode;
+	}
+
+	@Override
+	public boolean mayMatch(final InsnIndex index)
+	{
+		return !index.getByOpcode(this.opcode).isEmpty();
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		hasher.putInt(this.opcode);
+	}
 }
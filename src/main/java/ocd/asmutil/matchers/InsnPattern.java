@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.matchers;
+
+import ocd.asmutil.ConstantPool;
+import ocd.asmutil.InjectionLocator;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.matchers.InsnPatternMatcher.Program;
+
+public abstract class InsnPattern
+{
+	InsnPattern()
+	{
+	}
+
+	abstract void compile(Program program);
+
+	public abstract boolean mayMatch(ConstantPool cp);
+
+	public abstract boolean mayMatch(InsnIndex index);
+
+	public static InsnPattern insn(final InjectionLocator locator)
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				program.emit(Program.MATCH, program.addLocator(locator), 0);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return locator.mayMatch(cp);
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return locator.mayMatch(index);
+			}
+		};
+	}
+
+	public static InsnPattern insn(final int opcode)
+	{
+		return insn(new InsnMatcher(opcode));
+	}
+
+	public static InsnPattern any()
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				program.emit(Program.ANY, 0, 0);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return true;
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return true;
+			}
+		};
+	}
+
+	public static InsnPattern seq(final InsnPattern... patterns)
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				for (final InsnPattern pattern : patterns)
+					pattern.compile(program);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				for (final InsnPattern pattern : patterns)
+					if (!pattern.mayMatch(cp))
+						return false;
+
+				return true;
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				for (final InsnPattern pattern : patterns)
+					if (!pattern.mayMatch(index))
+						return false;
+
+				return true;
+			}
+		};
+	}
+
+	public static InsnPattern optional(final InsnPattern pattern)
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				final int split = program.emit(Program.SPLIT, 0, 0);
+
+				pattern.compile(program);
+
+				program.patch(split, split + 1, program.size());
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return true;
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return true;
+			}
+		};
+	}
+
+	// Greedy, so that the longest repetition is preferred
+	public static InsnPattern star(final InsnPattern pattern)
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				final int split = program.emit(Program.SPLIT, 0, 0);
+
+				pattern.compile(program);
+
+				program.emit(Program.JMP, split, 0);
+				program.patch(split, split + 1, program.size());
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return true;
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return true;
+			}
+		};
+	}
+
+	public static InsnPattern plus(final InsnPattern pattern)
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				final int start = program.size();
+
+				pattern.compile(program);
+
+				final int split = program.emit(Program.SPLIT, 0, 0);
+				program.patch(split, start, split + 1);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return pattern.mayMatch(cp);
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return pattern.mayMatch(index);
+			}
+		};
+	}
+
+	public static InsnPattern capture(final String name, final InsnPattern pattern)
+	{
+		return new InsnPattern()
+		{
+			@Override
+			void compile(final Program program)
+			{
+				final int slot = program.addCapture(name);
+
+				program.emit(Program.SAVE, slot, 0);
+				pattern.compile(program);
+				program.emit(Program.SAVE, slot + 1, 0);
+			}
+
+			@Override
+			public boolean mayMatch(final ConstantPool cp)
+			{
+				return pattern.mayMatch(cp);
+			}
+
+			@Override
+			public boolean mayMatch(final InsnIndex index)
+			{
+				return pattern.mayMatch(index);
+			}
+		};
+	}
+}
@@ -0,0 +1,472 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.matchers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import ocd.asmutil.ConstantPool;
+import ocd.asmutil.InjectionLocator;
+import ocd.asmutil.InsnIndex;
+
+public class InsnPatternMatcher
+{
+	private static final int OPCODES = 257;
+
+	private final InsnPattern[] patterns;
+	private final Program program = new Program();
+
+	private final int[] entries;
+	private final List<Map<String, Integer>> captures = new ArrayList<>();
+
+	// Opcode filters, indexed by opcode + 1, derived from the locators' opcode hints
+	private final boolean[][] locatorOpcodes;
+	private final boolean[][] entryOpcodes;
+
+	public InsnPatternMatcher(final InsnPattern... patterns)
+	{
+		this.patterns = patterns;
+		this.entries = new int[patterns.length];
+
+		for (int i = 0; i < patterns.length; ++i)
+		{
+			this.entries[i] = this.program.size();
+			this.program.captures = new HashMap<>();
+
+			patterns[i].compile(this.program);
+			this.program.emit(Program.ACCEPT, i, 0);
+
+			this.captures.add(this.program.captures);
+		}
+
+		this.locatorOpcodes = new boolean[this.program.locators.size()][];
+
+		for (int i = 0; i < this.locatorOpcodes.length; ++i)
+		{
+			final InjectionLocator locator = this.program.locators.get(i);
+			this.locatorOpcodes[i] = new boolean[OPCODES];
+
+			for (int opcode = 0; opcode < OPCODES - 1; ++opcode)
+				this.locatorOpcodes[i][opcode + 1] = locator.mayMatch(opcode);
+		}
+
+		this.entryOpcodes = new boolean[patterns.length][];
+
+		for (int i = 0; i < patterns.length; ++i)
+		{
+			this.entryOpcodes[i] = new boolean[OPCODES];
+			this.collectFirstOpcodes(this.entries[i], this.entryOpcodes[i], new boolean[this.program.size()]);
+		}
+	}
+
+	// Opcodes of the instructions a pattern can start with, so that threads are only started where they can make progress
+	private void collectFirstOpcodes(final int pc, final boolean[] opcodes, final boolean[] visited)
+	{
+		if (visited[pc])
+			return;
+
+		visited[pc] = true;
+
+		switch (this.program.ops[pc])
+		{
+		case Program.MATCH:
+			final boolean[] locatorOpcodes = this.locatorOpcodes[this.program.args[pc]];
+
+			for (int i = 0; i < OPCODES; ++i)
+				opcodes[i] |= locatorOpcodes[i];
+
+			break;
+		case Program.ANY:
+			Arrays.fill(opcodes, true);
+			break;
+		case Program.SPLIT:
+			this.collectFirstOpcodes(this.program.args[pc], opcodes, visited);
+			this.collectFirstOpcodes(this.program.args2[pc], opcodes, visited);
+			break;
+		case Program.JMP:
+			this.collectFirstOpcodes(this.program.args[pc], opcodes, visited);
+			break;
+		case Program.SAVE:
+			this.collectFirstOpcodes(pc + 1, opcodes, visited);
+			break;
+		}
+	}
+
+	public boolean mayMatch(final ConstantPool cp)
+	{
+		for (final InsnPattern pattern : this.patterns)
+			if (pattern.mayMatch(cp))
+				return true;
+
+		return false;
+	}
+
+	public boolean mayMatch(final InsnIndex index)
+	{
+		for (final InsnPattern pattern : this.patterns)
+			if (pattern.mayMatch(index))
+				return true;
+
+		return false;
+	}
+
+	// Finds the leftmost, non-overlapping matches of all patterns in a single forward pass. Patterns registered earlier win
+	// among matches starting at the same instruction. Labels, line numbers and frames are skipped, and empty matches are
+	// never reported.
+	public List<Match> match(final MethodNode methodNode)
+	{
+		final List<AbstractInsnNode> insnList = new ArrayList<>(methodNode.instructions.size());
+
+		for (AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+			if (insn.getOpcode() >= 0)
+				insnList.add(insn);
+
+		final AbstractInsnNode[] insns = insnList.toArray(new AbstractInsnNode[0]);
+
+		return new Run(methodNode, insns).run();
+	}
+
+	public class Match
+	{
+		public final int pattern;
+		public final AbstractInsnNode start;
+		public final AbstractInsnNode end;
+
+		private final AbstractInsnNode[] insns;
+		private final int[] slots;
+
+		Match(final int pattern, final AbstractInsnNode[] insns, final int startIndex, final int endIndex, final int[] slots)
+		{
+			this.pattern = pattern;
+			this.start = insns[startIndex];
+			this.end = insns[endIndex - 1];
+			this.insns = insns;
+			this.slots = slots;
+		}
+
+		private int getSlot(final String name)
+		{
+			final Integer slot = InsnPatternMatcher.this.captures.get(this.pattern).get(name);
+
+			if (slot == null)
+				throw new IllegalArgumentException("Unknown capture: " + name);
+
+			return slot;
+		}
+
+		@Nullable
+		public AbstractInsnNode getStart(final String name)
+		{
+			final int slot = this.getSlot(name);
+			final int start = this.slots[slot];
+
+			return start < 0 || start == this.slots[slot + 1] ? null : this.insns[start];
+		}
+
+		@Nullable
+		public AbstractInsnNode getEnd(final String name)
+		{
+			final int slot = this.getSlot(name);
+			final int start = this.slots[slot];
+
+			return start < 0 || start == this.slots[slot + 1] ? null : this.insns[this.slots[slot + 1] - 1];
+		}
+	}
+
+	// Pike VM over the compiled program. Threads are kept in priority order, so the first accepting thread wins.
+	private class Run
+	{
+		private final MethodNode methodNode;
+		private final AbstractInsnNode[] insns;
+
+		private ThreadList current;
+		private ThreadList next;
+
+		// Locator results are shared by all threads testing the same instruction
+		private final int[] testedAt;
+		private final boolean[] results;
+
+		private final int[] emptySlots;
+
+		Run(final MethodNode methodNode, final AbstractInsnNode[] insns)
+		{
+			final Program program = InsnPatternMatcher.this.program;
+
+			this.methodNode = methodNode;
+			this.insns = insns;
+			this.current = new ThreadList(program.size());
+			this.next = new ThreadList(program.size());
+			this.testedAt = new int[program.locators.size()];
+			this.results = new boolean[program.locators.size()];
+
+			Arrays.fill(this.testedAt, -1);
+
+			this.emptySlots = new int[program.slots];
+			Arrays.fill(this.emptySlots, -1);
+		}
+
+		// Threads of layer k + 1 search from the end of the pending match k, as a restart there would, so no instruction is
+		// visited twice. An accepting thread replaces the match of its layer and drops all lower priority threads, which
+		// includes every later layer. A later thread only loses its state to an earlier one, whose fate it would share anyway.
+		List<Match> run()
+		{
+			final Program program = InsnPatternMatcher.this.program;
+			final int[] entries = InsnPatternMatcher.this.entries;
+			final boolean[][] entryOpcodes = InsnPatternMatcher.this.entryOpcodes;
+
+			final List<Match> matches = new ArrayList<>();
+
+			for (int pos = 0; ; ++pos)
+			{
+				// Threads reaching this position always started before it, so only the first accepting one counts
+				for (int t = 0; t < this.current.size; ++t)
+				{
+					final int pc = this.current.pcs[t];
+
+					if (program.ops[pc] != Program.ACCEPT)
+						continue;
+
+					matches.subList(this.current.layers[t], matches.size()).clear();
+					matches.add(new Match(program.args[pc], this.insns, this.current.starts[t], pos, this.current.slots[t]));
+					this.current.truncate(t);
+					break;
+				}
+
+				if (pos == this.insns.length)
+					return matches;
+
+				final int layer = matches.size();
+				final int opcode = this.insns[pos].getOpcode() + 1;
+
+				for (int i = 0; i < entries.length; ++i)
+					if (entryOpcodes[i][opcode])
+						this.add(this.current, entries[i], layer, pos, this.emptySlots, pos);
+
+				this.next.clear();
+
+				for (int t = 0; t < this.current.size; ++t)
+				{
+					final int pc = this.current.pcs[t];
+					final int threadLayer = this.current.layers[t];
+					final int start = this.current.starts[t];
+					final int[] slots = this.current.slots[t];
+
+					switch (program.ops[pc])
+					{
+					case Program.ANY:
+						this.add(this.next, pc + 1, threadLayer, start, slots, pos + 1);
+						break;
+					case Program.MATCH:
+						if (this.test(program.args[pc], pos))
+							this.add(this.next, pc + 1, threadLayer, start, slots, pos + 1);
+						break;
+					}
+				}
+
+				final ThreadList tmp = this.current;
+				this.current = this.next;
+				this.next = tmp;
+			}
+		}
+
+		private boolean test(final int locator, final int pos)
+		{
+			if (this.testedAt[locator] != pos)
+			{
+				final AbstractInsnNode insn = this.insns[pos];
+
+				this.testedAt[locator] = pos;
+				this.results[locator] = InsnPatternMatcher.this.locatorOpcodes[locator][insn.getOpcode() + 1]
+					&& InsnPatternMatcher.this.program.locators.get(locator).test(this.methodNode, insn);
+			}
+
+			return this.results[locator];
+		}
+
+		private void add(final ThreadList list, final int pc, final int layer, final int start, final int[] slots, final int pos)
+		{
+			if (!list.mark(pc))
+				return;
+
+			final Program program = InsnPatternMatcher.this.program;
+
+			switch (program.ops[pc])
+			{
+			case Program.JMP:
+				this.add(list, program.args[pc], layer, start, slots, pos);
+				break;
+			case Program.SPLIT:
+				this.add(list, program.args[pc], layer, start, slots, pos);
+				this.add(list, program.args2[pc], layer, start, slots, pos);
+				break;
+			case Program.SAVE:
+				final int[] saved = slots.clone();
+				saved[program.args[pc]] = pos;
+				this.add(list, pc + 1, layer, start, saved, pos);
+				break;
+			default:
+				list.add(pc, layer, start, slots);
+			}
+		}
+	}
+
+	private static class ThreadList
+	{
+		final int[] pcs;
+		final int[] layers;
+		final int[] starts;
+		final int[][] slots;
+		int size;
+
+		// Sparse set of the instructions already reached in this step
+		private final int[] dense;
+		private final int[] sparse;
+		private int marked;
+
+		ThreadList(final int programSize)
+		{
+			this.pcs = new int[programSize];
+			this.layers = new int[programSize];
+			this.starts = new int[programSize];
+			this.slots = new int[programSize][];
+			this.dense = new int[programSize];
+			this.sparse = new int[programSize];
+		}
+
+		void clear()
+		{
+			this.size = 0;
+			this.marked = 0;
+		}
+
+		// Keeps the first threads only, which must not block states of dropped threads any longer
+		void truncate(final int size)
+		{
+			this.size = size;
+			this.marked = 0;
+
+			for (int i = 0; i < size; ++i)
+				this.mark(this.pcs[i]);
+		}
+
+		boolean mark(final int pc)
+		{
+			final int i = this.sparse[pc];
+
+			if (i < this.marked && this.dense[i] == pc)
+				return false;
+
+			this.sparse[pc] = this.marked;
+			this.dense[this.marked++] = pc;
+
+			return true;
+		}
+
+		void add(final int pc, final int layer, final int start, final int[] slots)
+		{
+			this.pcs[this.size] = pc;
+			this.layers[this.size] = layer;
+			this.starts[this.size] = start;
+			this.slots[this.size++] = slots;
+		}
+	}
+
+	static class Program
+	{
+		static final int MATCH = 0;
+		static final int ANY = 1;
+		static final int SPLIT = 2;
+		static final int JMP = 3;
+		static final int SAVE = 4;
+		static final int ACCEPT = 5;
+
+		int[] ops = new int[16];
+		int[] args = new int[16];
+		int[] args2 = new int[16];
+		private int size;
+
+		final List<InjectionLocator> locators = new ArrayList<>();
+		private final Map<InjectionLocator, Integer> locatorIds = new HashMap<>();
+
+		int slots;
+		Map<String, Integer> captures;
+
+		int size()
+		{
+			return this.size;
+		}
+
+		int emit(final int op, final int arg, final int arg2)
+		{
+			if (this.size == this.ops.length)
+			{
+				this.ops = Arrays.copyOf(this.ops, this.size * 2);
+				this.args = Arrays.copyOf(this.args, this.size * 2);
+				this.args2 = Arrays.copyOf(this.args2, this.size * 2);
+			}
+
+			this.ops[this.size] = op;
+			this.args[this.size] = arg;
+			this.args2[this.size] = arg2;
+
+			return this.size++;
+		}
+
+		void patch(final int pc, final int arg, final int arg2)
+		{
+			this.args[pc] = arg;
+			this.args2[pc] = arg2;
+		}
+
+		// Patterns sharing a locator instance only test it once per instruction
+		int addLocator(final InjectionLocator locator)
+		{
+			return this.locatorIds.computeIfAbsent(locator, k -> {
+				this.locators.add(k);
+				return this.locators.size() - 1;
+			});
+		}
+
+		int addCapture(final String name)
+		{
+			if (this.captures.containsKey(name))
+				throw new IllegalArgumentException("Duplicate capture: " + name);
+
+			final int slot = this.slots;
+			this.slots += 2;
+			this.captures.put(name, slot);
+
+			return slot;
+		}
+	}
+}
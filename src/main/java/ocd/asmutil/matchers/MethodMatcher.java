@@ -27,10 +27,17 @@ package ocd.asmutil.matchers;
 
 import javax.annotation.Nullable;
 
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
 import ocd.asmutil.InjectionLocator.Simple;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.SymbolTable;
+import ocd.asmutil.cache.Fingerprints;
 
 public class MethodMatcher implements Simple
 {
@@ -57,6 +64,31 @@ public class MethodMatcher implements Simple
 		return this.md.matches(insn);
 	}
 
+	@Override
+	public boolean mayMatch(final ConstantPool cp)
+	{
+		return this.md.mayMatch(cp);
+	}
+
+	@Override
+	public boolean mayMatch(final int opcode)
+	{
+		return opcode >= Opcodes.INVOKEVIRTUAL && opcode <= Opcodes.INVOKEINTERFACE;
+	}
+
+	@Override
+	public boolean mayMatch(final InsnIndex index)
+	{
+		return this.md.mayMatch(index);
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		this.md.fingerprint(hasher);
+	}
+
 	public static class MethodDescriptor
 	{
 		public final @Nullable String owner;
@@ -65,9 +97,9 @@ public class MethodMatcher implements Simple
 
 		public MethodDescriptor(final @Nullable String owner, final String name, final @Nullable String desc)
 		{
-			this.owner = owner == null ? null : owner.replace('.', '/');
-			this.name = name;
-			this.desc = desc;
+			this.owner = owner == null ? null : SymbolTable.intern(owner.replace('.', '/'));
+			this.name = SymbolTable.intern(name);
+			this.desc = SymbolTable.internNullable(desc);
 		}
 
 		public MethodDescriptor(final String name, @Nullable final String desc)
@@ -82,13 +114,40 @@ public class MethodMatcher implements Simple
 
 		public boolean matches(final String owner, final String name, final String desc)
 		{
-			if (this.owner != null && !this.owner.equals(owner))
+			if (!SymbolTable.equals(this.name, name))
+				return false;
+
+			if (this.owner != null && !SymbolTable.equals(this.owner, owner))
+				return false;
+
+			return this.desc == null || SymbolTable.equals(this.desc, desc);
+		}
+
+		public boolean mayMatch(final ConstantPool cp)
+		{
+			if (this.owner != null && !cp.containsUtf8(this.owner))
 				return false;
 
-			if (this.desc != null && !this.desc.equals(desc))
+			if (this.desc != null && !cp.containsUtf8(this.desc))
 				return false;
 
-			return this.name.equals(name);
+			return cp.containsUtf8(this.name);
+		}
+
+		public boolean mayMatch(final InsnIndex index)
+		{
+			for (final AbstractInsnNode insn : index.getByName(this.name))
+				if (this.matches(insn))
+					return true;
+
+			return false;
+		}
+
+		public void fingerprint(final Hasher hasher)
+		{
+			Fingerprints.putString(hasher, this.owner);
+			Fingerprints.putString(hasher, this.name);
+			Fingerprints.putString(hasher, this.desc);
 		}
 
 		public boolean matches(final MethodInsnNode method)
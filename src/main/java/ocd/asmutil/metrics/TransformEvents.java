@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.metrics;
+
+import javax.annotation.Nullable;
+
+public class TransformEvents
+{
+	// The events are compiled in their own source set, which needs a JDK with JFR. They are only loaded if JFR is present,
+	// so the core library builds with and runs on any Java 8.
+	private static final @Nullable EventSink SINK = loadSink();
+
+	@Nullable
+	private static EventSink loadSink()
+	{
+		final ClassLoader loader = TransformEvents.class.getClassLoader();
+
+		try
+		{
+			Class.forName("jdk.jfr.Event", false, loader);
+
+			return (EventSink) Class.forName("ocd.asmutil.metrics.JfrEventSink", true, loader).newInstance();
+		} catch (final ReflectiveOperationException | LinkageError e)
+		{
+			return null;
+		}
+	}
+
+	public static @Nullable Object beginClass(final String className)
+	{
+		final EventSink sink = SINK;
+
+		return sink != null && sink.isClassEventEnabled() ? sink.beginClass(className) : null;
+	}
+
+	public static void commitClass(final @Nullable Object event, final String transformers, final boolean modified, final boolean verified)
+	{
+		if (event != null && SINK != null)
+			SINK.commitClass(event, transformers, modified, verified);
+	}
+
+	public static boolean isMethodEventEnabled()
+	{
+		return SINK != null && SINK.isMethodEventEnabled();
+	}
+
+	// Only valid once isMethodEventEnabled returned true
+	public static Object beginMethod(final String className, final String method, final String transformer)
+	{
+		return getSink().beginMethod(className, method, transformer);
+	}
+
+	public static void endMethod(final Object event)
+	{
+		getSink().endMethod(event);
+	}
+
+	public static void commitMethod(final Object event, final boolean verified)
+	{
+		getSink().commitMethod(event, verified);
+	}
+
+	private static EventSink getSink()
+	{
+		if (SINK == null)
+			throw new IllegalStateException("JFR is not available");
+
+		return SINK;
+	}
+}
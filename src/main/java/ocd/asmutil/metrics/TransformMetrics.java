@@ -0,0 +1,233 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import ocd.asmutil.cache.ClassCache;
+
+public class TransformMetrics implements TransformMetricsMXBean
+{
+	private volatile boolean enabled = true;
+
+	// Both are keyed by the class names transformers are registered under, e.g. "java.lang.Object"
+	private final Map<String, Stats> classStats = new ConcurrentHashMap<>();
+	private final Map<TransformerKey, Stats> transformerStats = new ConcurrentHashMap<>();
+
+	// Published as ocd.asmutil:type=TransformMetrics,name="<name>", so that each dispatcher may register its own
+	public ObjectName register(final String name) throws JMException
+	{
+		final ObjectName objectName = new ObjectName("ocd.asmutil:type=TransformMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+		return objectName;
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return this.enabled;
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void reset()
+	{
+		this.classStats.clear();
+		this.transformerStats.clear();
+	}
+
+	public void recordClass(final String name, final long nanos, final int bytesIn, final int bytesOut)
+	{
+		final Stats stats = getStats(this.classStats, name);
+
+		stats.record(nanos);
+		stats.bytesIn.add(bytesIn);
+		stats.bytesOut.add(bytesOut);
+	}
+
+	public void recordVerification(final String name, final long nanos)
+	{
+		getStats(this.classStats, name).verificationTime.add(nanos);
+	}
+
+	// Keyed by transformer instance, so that two transformers of the same class on one method are reported separately
+	public void recordTransformer(final Object transformer, final String className, final String methodName, final String methodDesc, final long nanos)
+	{
+		getStats(this.transformerStats, new TransformerKey(transformer, className, methodName, methodDesc)).record(nanos);
+	}
+
+	@Override
+	public Map<String, Snapshot> getClassStats()
+	{
+		return snapshot(this.classStats);
+	}
+
+	@Override
+	public Map<String, Snapshot> getTransformerStats()
+	{
+		return snapshot(this.transformerStats);
+	}
+
+	private static <K> Stats getStats(final Map<K, Stats> stats, final K key)
+	{
+		final Stats ret = stats.get(key);
+
+		return ret == null ? stats.computeIfAbsent(key, k -> new Stats()) : ret;
+	}
+
+	private static Map<String, Snapshot> snapshot(final Map<?, Stats> stats)
+	{
+		final Map<String, Snapshot> ret = new TreeMap<>();
+
+		for (final Map.Entry<?, Stats> entry : stats.entrySet())
+			ret.put(entry.getKey().toString(), new Snapshot(entry.getValue()));
+
+		return ret;
+	}
+
+	private static class TransformerKey
+	{
+		final Object transformer;
+		final String className;
+		final String methodName;
+		final String methodDesc;
+
+		TransformerKey(final Object transformer, final String className, final String methodName, final String methodDesc)
+		{
+			this.transformer = transformer;
+			this.className = className;
+			this.methodName = methodName;
+			this.methodDesc = methodDesc;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (!(obj instanceof TransformerKey))
+				return false;
+
+			final TransformerKey key = (TransformerKey) obj;
+
+			return this.transformer == key.transformer
+				&& this.methodName.equals(key.methodName)
+				&& this.className.equals(key.className)
+				&& this.methodDesc.equals(key.methodDesc);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ((System.identityHashCode(this.transformer) * 31 + this.className.hashCode()) * 31 + this.methodName.hashCode()) * 31 + this.methodDesc.hashCode();
+		}
+
+		// Only built for snapshots. The identity hash tells apart instances of the same transformer class.
+		@Override
+		public String toString()
+		{
+			return this.className + '.' + this.methodName + this.methodDesc + ' ' + ClassCache.fingerprint(this.transformer) + '@' + Integer.toHexString(System.identityHashCode(this.transformer));
+		}
+	}
+
+	private static class Stats
+	{
+		final LongAdder count = new LongAdder();
+		final LongAdder totalTime = new LongAdder();
+		final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+		final LongAdder bytesIn = new LongAdder();
+		final LongAdder bytesOut = new LongAdder();
+		final LongAdder verificationTime = new LongAdder();
+
+		void record(final long nanos)
+		{
+			this.count.increment();
+			this.totalTime.add(nanos);
+			this.maxTime.accumulate(nanos);
+		}
+	}
+
+	public static class Snapshot
+	{
+		private final long count;
+		private final long totalTimeNanos;
+		private final long maxTimeNanos;
+		private final long bytesIn;
+		private final long bytesOut;
+		private final long verificationTimeNanos;
+
+		private Snapshot(final Stats stats)
+		{
+			this.count = stats.count.sum();
+			this.totalTimeNanos = stats.totalTime.sum();
+			this.maxTimeNanos = stats.maxTime.get();
+			this.bytesIn = stats.bytesIn.sum();
+			this.bytesOut = stats.bytesOut.sum();
+			this.verificationTimeNanos = stats.verificationTime.sum();
+		}
+
+		public long getCount()
+		{
+			return this.count;
+		}
+
+		public long getTotalTimeNanos()
+		{
+			return this.totalTimeNanos;
+		}
+
+		public long getMaxTimeNanos()
+		{
+			return this.maxTimeNanos;
+		}
+
+		public long getBytesIn()
+		{
+			return this.bytesIn;
+		}
+
+		public long getBytesOut()
+		{
+			return this.bytesOut;
+		}
+
+		public long getVerificationTimeNanos()
+		{
+			return this.verificationTimeNanos;
+		}
+	}
+}
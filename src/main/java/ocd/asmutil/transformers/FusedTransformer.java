@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.transformers;
+
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
+import ocd.asmutil.FusibleTransformer;
+import ocd.asmutil.MethodContext;
+import ocd.asmutil.MethodNodeTransformer;
+import ocd.asmutil.MethodTransformerException;
+import ocd.asmutil.cache.Fingerprints;
+
+public class FusedTransformer implements MethodNodeTransformer
+{
+	private final FusibleTransformer[] transformers;
+
+	public FusedTransformer(final FusibleTransformer... transformers)
+	{
+		this.transformers = transformers;
+	}
+
+	@Override
+	public boolean mayTransform(final ConstantPool cp)
+	{
+		for (final FusibleTransformer transformer : this.transformers)
+			if (transformer.mayTransform(cp))
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public boolean mayTransform(final MethodNode methodNode, final MethodContext context)
+	{
+		for (final FusibleTransformer transformer : this.transformers)
+			if (transformer.mayTransform(methodNode, context))
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		Fingerprints.putObject(hasher, this.transformers);
+	}
+
+	@Override
+	public MethodNode transform(final String className, final MethodNode methodNode, final Logger logger) throws MethodTransformerException, AnalyzerException
+	{
+		return this.transform(className, methodNode, logger, new MethodContext());
+	}
+
+	@Override
+	public MethodNode transform(
+		final String className,
+		final MethodNode methodNode,
+		final Logger logger,
+		final MethodContext context
+	) throws MethodTransformerException, AnalyzerException
+	{
+		return FusibleTransformer.runPasses(className, methodNode, logger, context, this.transformers);
+	}
+}
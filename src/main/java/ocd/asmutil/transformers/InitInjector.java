@@ -29,7 +29,6 @@ import javax.annotation.Nullable;
 
 import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
@@ -39,15 +38,18 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
+import ocd.asmutil.FusibleTransformer;
 import ocd.asmutil.InsnInjector;
-import ocd.asmutil.MethodNodeTransformer;
+import ocd.asmutil.MethodContext;
 import ocd.asmutil.MethodTransformerException;
-import ocd.asmutil.frame.FrameUtil;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.frame.TrackingValue;
-import ocd.asmutil.frame.TrackingValue.TrackingInterpreter;
 import ocd.asmutil.matchers.MethodMatcher.MethodDescriptor;
 
-public class InitInjector implements MethodNodeTransformer
+public class InitInjector implements FusibleTransformer
 {
 	public static final InsnInjector CAPTURE_THIS = new ArgLoader(0);
 
@@ -80,6 +82,13 @@ public class InitInjector implements MethodNodeTransformer
 			frame.execute(loadInsn, interpreter);
 			frame.execute(swapInsn, interpreter);
 		}
+
+		@Override
+		public void fingerprint(final Hasher hasher)
+		{
+			Fingerprints.putClass(hasher, this);
+			hasher.putInt(this.index);
+		}
 	}
 
 	private final MethodDescriptor md;
@@ -96,27 +105,44 @@ public class InitInjector implements MethodNodeTransformer
 	}
 
 	@Override
-	public MethodNode transform(final String className, final MethodNode methodNode, final Logger logger) throws MethodTransformerException, AnalyzerException
+	public boolean mayTransform(final ConstantPool cp)
 	{
-		final Interpreter<TrackingValue> interpreter = new TrackingInterpreter();
-		final TrackingValue retType = interpreter.newValue(Type.getReturnType(methodNode.desc));
-
-		final Frame<TrackingValue> frame = FrameUtil.getFrame(null, className, methodNode, retType, interpreter);
+		return this.md.mayMatch(cp);
+	}
 
-		final InsnList insns = methodNode.instructions;
+	@Override
+	public boolean mayTransform(final MethodNode methodNode, final MethodContext context)
+	{
+		return this.md.mayMatch(context.getInsnIndex(methodNode));
+	}
 
-		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext())
-		{
-			FrameUtil.execute(insn, frame, className, methodNode, retType, interpreter);
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		this.md.fingerprint(hasher);
+		Fingerprints.putObject(hasher, this.injectors);
+	}
 
+	@Override
+	public Pass createPass(
+		final String className,
+		final MethodNode methodNode,
+		final Logger logger,
+		final MethodContext context,
+		final Interpreter<TrackingValue> interpreter,
+		final @Nullable TrackingValue retType
+	)
+	{
+		return (insn, frame) -> {
 			if (!this.md.matches(insn))
-				continue;
+				return;
 
 			final AbstractInsnNode next = insn.getNext();
 
 			final AbstractInsnNode dupInsn = new InsnNode(Opcodes.DUP);
 
-			insns.insertBefore(next, dupInsn);
+			methodNode.instructions.insertBefore(next, dupInsn);
 
 			if (frame.getStackSize() == 0 || !frame.getStack(frame.getStackSize() - 1).getType().getInternalName().equals(this.md.owner))
 				throw new MethodTransformerException("Missing instance of new object on operand stack: " + this.md.owner, methodNode, next);
@@ -126,9 +152,7 @@ public class InitInjector implements MethodNodeTransformer
 			for (final InsnInjector injector : this.injectors)
 				injector.inject(className, methodNode, next, frame, interpreter);
 
-			insn = next.getPrevious();
-		}
-
-		return methodNode;
+			context.markModified();
+		};
 	}
 }
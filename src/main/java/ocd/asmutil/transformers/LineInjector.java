@@ -25,11 +25,11 @@
 
 package ocd.asmutil.transformers;
 
+import java.util.Arrays;
 import javax.annotation.Nullable;
 
 import org.apache.logging.log4j.Logger;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FrameNode;
 import org.objectweb.asm.tree.InsnList;
@@ -39,18 +39,24 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.tree.analysis.Interpreter;
 
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.ConstantPool;
+import ocd.asmutil.FusibleTransformer;
 import ocd.asmutil.InjectionLocator;
-import ocd.asmutil.MethodNodeTransformer;
+import ocd.asmutil.InsnIndex;
+import ocd.asmutil.LocatorTable;
+import ocd.asmutil.MethodContext;
 import ocd.asmutil.MethodTransformerException;
 import ocd.asmutil.SlicedInsnInjector;
-import ocd.asmutil.frame.FrameUtil;
+import ocd.asmutil.cache.Fingerprints;
 import ocd.asmutil.frame.FrameUtil.DynamicFrame;
 import ocd.asmutil.frame.TrackingValue;
-import ocd.asmutil.frame.TrackingValue.TrackingInterpreter;
 
-public class LineInjector implements MethodNodeTransformer
+public class LineInjector implements FusibleTransformer
 {
-	private final LineProcessor processor;
+	private final LineProcessor[] processors;
+	private final LocatorTable lineIdentifiers;
 
 	public static final SlicedInsnInjector REMOVE = (className, methodNode, sliceStart, sliceEnd, frameStart, frameEnd, interpreter) -> {
 		InsnList insns = methodNode.instructions;
@@ -73,9 +79,16 @@ public class LineInjector implements MethodNodeTransformer
 		frameEnd.init(frameStart);
 	};
 
-	public LineInjector(final LineProcessor processor)
+	public LineInjector(final LineProcessor... processors)
 	{
-		this.processor = processor;
+		this.processors = processors;
+
+		final InjectionLocator[] lineIdentifiers = new InjectionLocator[processors.length];
+
+		for (int i = 0; i < processors.length; ++i)
+			lineIdentifiers[i] = processors[i].lineIdentifier;
+
+		this.lineIdentifiers = new LocatorTable(lineIdentifiers);
 	}
 
 	public LineInjector(
@@ -94,70 +107,221 @@ public class LineInjector implements MethodNodeTransformer
 	}
 
 	@Override
-	public MethodNode transform(final String className, final MethodNode methodNode, final Logger logger) throws MethodTransformerException, AnalyzerException
+	public boolean mayTransform(final ConstantPool cp)
+	{
+		for (final LineProcessor processor : this.processors)
+			if (processor.lineIdentifier.mayMatch(cp))
+				return true;
+
+		return false;
+	}
+
+	@Override
+	public boolean mayTransform(final MethodNode methodNode, final MethodContext context)
 	{
-		final Interpreter<TrackingValue> interpreter = new TrackingInterpreter();
-		final TrackingValue retType = interpreter.newValue(Type.getReturnType(methodNode.desc));
+		final InsnIndex index = context.getInsnIndex(methodNode);
 
-		final Frame<TrackingValue> frame = FrameUtil.getFrame(null, className, methodNode, retType, interpreter);
+		for (final LineProcessor processor : this.processors)
+			if (processor.lineIdentifier.mayMatch(index))
+				return true;
 
-		FrameNode lastFrame = null;
+		return false;
+	}
 
-		final InsnList insns = methodNode.instructions;
+	@Override
+	public void fingerprint(final Hasher hasher)
+	{
+		Fingerprints.putClass(hasher, this);
+		hasher.putInt(this.processors.length);
 
-		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn == null ? insns.getFirst() : insn.getNext())
+		for (final LineProcessor processor : this.processors)
 		{
-			if (insn instanceof FrameNode)
-				lastFrame = (FrameNode) insn;
+			processor.lineIdentifier.fingerprint(hasher);
+			Fingerprints.putObject(hasher, processor.lineEndIdentifier);
+			Fingerprints.putObject(hasher, processor.injectors);
+			hasher.putInt(processor.stackMod);
+		}
+	}
+
+	@Override
+	public Pass createPass(
+		final String className,
+		final MethodNode methodNode,
+		final Logger logger,
+		final MethodContext context,
+		final Interpreter<TrackingValue> interpreter,
+		final @Nullable TrackingValue retType
+	)
+	{
+		final LineProcessor[] processors = this.processors;
 
-			FrameUtil.execute(insn, frame, className, methodNode, retType, interpreter);
+		return new Pass()
+		{
+			private final AbstractInsnNode[] lineInsns = new AbstractInsnNode[processors.length];
 
-			if (!this.processor.lineIdentifier.test(methodNode, insn))
-				continue;
+			private final int[] openLines = new int[processors.length];
+			private int nOpen;
 
-			final InjectionLocator lineEndIdentifier = this.processor.lineEndIdentifier;
+			// Last position before which the stack had a given height. Each processor only considers positions from its
+			// own window on, which starts at the last FrameNode outside of its line or after the last patched line.
+			private SliceStart[] starts = new SliceStart[8];
+			private int generation;
+			private int window;
+			private final int[] windows = new int[processors.length];
 
-			final AbstractInsnNode lineInsn = insn;
+			private final int[] endingLines = new int[processors.length];
 
-			for (; insn != null; insn = insn.getNext())
+			@Override
+			public void preVisit(final AbstractInsnNode insn, final Frame<TrackingValue> frame)
 			{
-				if (insn != lineInsn)
-					FrameUtil.execute(insn, frame, className, methodNode, retType, interpreter);
+				final int height = frame.getStackSize();
+
+				if (height >= this.starts.length)
+					this.starts = Arrays.copyOf(this.starts, Math.max(height + 1, this.starts.length * 2));
 
-				if (lineEndIdentifier == null && frame.getStackSize() == 0 || lineEndIdentifier != null && lineEndIdentifier.test(methodNode, insn))
-					break;
+				SliceStart start = this.starts[height];
+
+				if (start == null)
+					start = this.starts[height] = new SliceStart(frame, retType);
+				else
+					start.frame.init(frame);
+
+				start.insn = insn;
+				start.generation = this.generation;
 			}
 
-			if (insn == null)
-				throw new MethodTransformerException("Could not find end of line", methodNode, lineInsn);
+			@Override
+			public void visit(final AbstractInsnNode insn, final Frame<TrackingValue> frame) throws MethodTransformerException, AnalyzerException
+			{
+				if (insn instanceof FrameNode)
+					this.window = ++this.generation;
+
+				// Only processors whose identifier can match this kind of instruction need to be tested
+				for (final int i : LineInjector.this.lineIdentifiers.getCandidates(insn))
+				{
+					if (this.lineInsns[i] != null || !processors[i].lineIdentifier.test(methodNode, insn))
+						continue;
+
+					this.lineInsns[i] = insn;
+					this.windows[i] = this.window;
+					this.openLines[this.nOpen++] = i;
+				}
+
+				int nEnding = 0;
 
-			final int stackSize = frame.getStackSize() - this.processor.stackMod;
+				for (int k = 0; k < this.nOpen; )
+				{
+					final int i = this.openLines[k];
+					final InjectionLocator lineEndIdentifier = processors[i].lineEndIdentifier;
+
+					if (lineEndIdentifier == null ? frame.getStackSize() != 0 : !lineEndIdentifier.test(methodNode, insn))
+					{
+						++k;
+						continue;
+					}
+
+					this.lineInsns[i] = null;
+					this.openLines[k] = this.openLines[--this.nOpen];
+					this.endingLines[nEnding++] = i;
+				}
 
-			final AbstractInsnNode end = insn.getNext();
+				if (nEnding == 0)
+					return;
 
-			final Frame<TrackingValue> lineFrame = FrameUtil.getFrame(lastFrame, className, methodNode, retType, interpreter);
+				Arrays.sort(this.endingLines, 0, nEnding);
 
-			final Frame<TrackingValue> frameStart = new DynamicFrame<>(frame, retType);
-			AbstractInsnNode candidateStart = end;
+				final AbstractInsnNode end = insn.getNext();
 
-			for (insn = lastFrame == null ? insns.getFirst() : lastFrame.getNext(); insn != end; insn = insn.getNext())
-			{
-				if (lineFrame.getStackSize() == stackSize)
+				// Lines ending together are all resolved against the unpatched code first, then injected in registration order
+				final AbstractInsnNode[] sliceStarts = new AbstractInsnNode[nEnding];
+				final Frame<TrackingValue>[] frameStarts = newFrameArray(nEnding);
+
+				for (int k = 0; k < nEnding; ++k)
 				{
-					candidateStart = insn;
-					frameStart.init(lineFrame);
+					final int i = this.endingLines[k];
+					final int stackSize = frame.getStackSize() - processors[i].stackMod;
+					final SliceStart start = stackSize >= 0 && stackSize < this.starts.length ? this.starts[stackSize] : null;
+
+					if (start != null && start.generation >= this.windows[i])
+					{
+						sliceStarts[k] = start.insn;
+						frameStarts[k] = new DynamicFrame<>(start.frame, retType);
+					}
 				}
 
-				FrameUtil.execute(insn, lineFrame, className, methodNode, retType, interpreter);
+				for (int k = 0; k < nEnding; ++k)
+				{
+					final LineProcessor processor = processors[this.endingLines[k]];
+
+					if (sliceStarts[k] != null && isBefore(sliceStarts[k], end))
+						LineInjector.inject(processor, className, methodNode, context, sliceStarts[k], end, frameStarts[k], frame, interpreter);
+					else
+						LineInjector.inject(processor, className, methodNode, context, end, end, new DynamicFrame<>(frame, retType), frame, interpreter);
+				}
+
+				// Injectors are free to move or remove code before the end of the line, so earlier positions are not reused
+				this.window = ++this.generation;
+
+				for (int k = 0; k < this.nOpen; ++k)
+					this.windows[this.openLines[k]] = this.window;
+			}
+
+			@Override
+			public void visitEnd() throws MethodTransformerException
+			{
+				for (final AbstractInsnNode lineInsn : this.lineInsns)
+					if (lineInsn != null)
+						throw new MethodTransformerException("Could not find end of line", methodNode, lineInsn);
 			}
+		};
+	}
 
-			for (final SlicedInsnInjector injector : this.processor.injectors)
-				injector.inject(className, methodNode, candidateStart, end, frameStart, frame, interpreter);
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Frame<TrackingValue>[] newFrameArray(final int size)
+	{
+		return (Frame<TrackingValue>[]) new Frame[size];
+	}
 
-			insn = end.getPrevious();
+	private static void inject(
+		final LineProcessor processor,
+		final String className,
+		final MethodNode methodNode,
+		final MethodContext context,
+		final AbstractInsnNode sliceStart,
+		final AbstractInsnNode sliceEnd,
+		final Frame<TrackingValue> frameStart,
+		final Frame<TrackingValue> frameEnd,
+		final Interpreter<TrackingValue> interpreter
+	) throws MethodTransformerException, AnalyzerException
+	{
+		for (final SlicedInsnInjector injector : processor.injectors)
+		{
+			injector.inject(className, methodNode, sliceStart, sliceEnd, frameStart, frameEnd, interpreter);
+			context.markModified();
 		}
+	}
+
+	// Other passes may have removed the recorded start in the meantime. Slices never overlap, so this stays linear overall.
+	private static boolean isBefore(final AbstractInsnNode insn, final AbstractInsnNode end)
+	{
+		AbstractInsnNode next = insn;
 
-		return methodNode;
+		while (next != null && next != end)
+			next = next.getNext();
+
+		return next == end;
+	}
+
+	private static class SliceStart
+	{
+		final DynamicFrame<TrackingValue> frame;
+		@Nullable AbstractInsnNode insn;
+		int generation;
+
+		SliceStart(final Frame<TrackingValue> frame, final @Nullable TrackingValue retType)
+		{
+			this.frame = new DynamicFrame<>(frame, retType);
+		}
 	}
 
 	public static class LineProcessor
@@ -167,7 +331,7 @@ public class LineInjector implements MethodNodeTransformer
 		public final SlicedInsnInjector[] injectors;
 		final int stackMod;
 
-		private LineProcessor(
+		public LineProcessor(
 			final InjectionLocator lineIdentifier,
 			final @Nullable InjectionLocator lineEndIdentifier,
 			final SlicedInsnInjector[] injectors,
@@ -178,5 +342,19 @@ public class LineInjector implements MethodNodeTransformer
 			this.injectors = injectors;
 			this.stackMod = stackMod;
 		}
+
+		public LineProcessor(
+			final InjectionLocator lineIdentifier,
+			final @Nullable InjectionLocator lineEndIdentifier,
+			final int stackMod,
+			final SlicedInsnInjector... injectors)
+		{
+			this(lineIdentifier, lineEndIdentifier, injectors, stackMod);
+		}
+
+		public LineProcessor(final InjectionLocator lineIdentifier, final SlicedInsnInjector... injectors)
+		{
+			this(lineIdentifier, null, injectors, 0);
+		}
 	}
 }
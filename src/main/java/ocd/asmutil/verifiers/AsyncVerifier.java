@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.verifiers;
+
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+
+import ocd.asmutil.MethodVerifier;
+
+public class AsyncVerifier implements MethodVerifier
+{
+	private final Executor executor;
+	private final MethodVerifier verifier;
+	private final @Nullable FailureHandler handler;
+
+	public AsyncVerifier(final Executor executor, final MethodVerifier verifier, final @Nullable FailureHandler handler)
+	{
+		this.executor = executor;
+		this.verifier = verifier;
+		this.handler = handler;
+	}
+
+	public AsyncVerifier(final Executor executor, final @Nullable FailureHandler handler)
+	{
+		this(executor, StrictVerifier.INSTANCE, handler);
+	}
+
+	public AsyncVerifier(final Executor executor)
+	{
+		this(executor, null);
+	}
+
+	@Override
+	public boolean verify(final String className, final MethodNode methodNode, final Logger logger)
+	{
+		// The original node is handed to the ClassWriter right after this call, so verify a private copy instead
+		final MethodNode copy = new MethodNode(
+			Opcodes.ASM5,
+			methodNode.access,
+			methodNode.name,
+			methodNode.desc,
+			methodNode.signature,
+			methodNode.exceptions.toArray(new String[0])
+		);
+
+		methodNode.accept(copy);
+
+		this.executor.execute(() -> {
+			try
+			{
+				this.verifier.verify(className, copy, logger);
+			} catch (final AnalyzerException e)
+			{
+				if (this.handler == null)
+					logger.error("Verification of method " + copy.name + " of class " + className + " failed", e);
+				else
+					this.handler.onFailure(className, copy, e);
+			}
+		});
+
+		return false;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.verifiers;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+
+import com.google.common.hash.Hashing;
+
+import ocd.asmutil.MethodVerifier;
+
+public class SampledVerifier implements MethodVerifier
+{
+	private final long threshold;
+	private final MethodVerifier verifier;
+
+	public SampledVerifier(final double rate, final MethodVerifier verifier)
+	{
+		if (rate < 0 || rate > 1)
+			throw new IllegalArgumentException("Sample rate must be between 0 and 1, got " + rate);
+
+		this.threshold = (long) (rate * (1L << 32));
+		this.verifier = verifier;
+	}
+
+	public SampledVerifier(final double rate)
+	{
+		this(rate, StrictVerifier.INSTANCE);
+	}
+
+	@Override
+	public boolean verify(final String className, final MethodNode methodNode, final Logger logger) throws AnalyzerException
+	{
+		// Sample by method identity rather than at random, so that a given method is either always or never verified
+		final int hash = Hashing.murmur3_32().newHasher()
+			.putString(className, StandardCharsets.UTF_8)
+			.putString(methodNode.name, StandardCharsets.UTF_8)
+			.putString(methodNode.desc, StandardCharsets.UTF_8)
+			.hash()
+			.asInt();
+
+		return Integer.toUnsignedLong(hash) < this.threshold && this.verifier.verify(className, methodNode, logger);
+	}
+}
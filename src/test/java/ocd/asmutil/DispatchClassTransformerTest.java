@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import com.google.common.hash.Hasher;
+
+import ocd.asmutil.cache.Fingerprints;
+import ocd.asmutil.cache.MemoryClassCache;
+
+public class DispatchClassTransformerTest
+{
+	private static final int CLASSES = 16;
+	private static final int THREADS = 4;
+	private static final int LOADS = 2000;
+
+	@Test(timeout = 60000)
+	public void transformerAddedDuringLoadsAppliesToLaterLoads() throws InterruptedException
+	{
+		final String[] names = new String[CLASSES];
+		final byte[][] classFiles = new byte[CLASSES][];
+
+		for (int i = 0; i < CLASSES; ++i)
+		{
+			names[i] = "ocd.asmutil.test.Loaded" + i;
+			classFiles[i] = generate(names[i]);
+		}
+
+		final String target = names[CLASSES - 1];
+
+		final DispatchClassTransformer transformer = new DispatchClassTransformer(LogManager.getLogger(), true)
+			.addTransformer(names[0], new MarkerTransformer("early"));
+
+		final CountDownLatch loaded = new CountDownLatch(LOADS);
+		final CountDownLatch loadedLate = new CountDownLatch(LOADS / CLASSES);
+		final AtomicInteger stage = new AtomicInteger();
+		final Queue<String> failures = new ConcurrentLinkedQueue<>();
+		final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+		final List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; ++t)
+			threads.add(new Thread(() -> {
+				try
+				{
+					while (stage.get() < 2)
+					{
+						final int i = ThreadLocalRandom.current().nextInt(CLASSES);
+
+						// Only loads starting after the registration returned must see it
+						final boolean registered = stage.get() == 1;
+						final byte[] transformedClass = transformer.transform(names[i], names[i], classFiles[i]);
+
+						if (i == 0 && !hasField(transformedClass, "early"))
+							failures.add("early transformer missing");
+
+						if (i == CLASSES - 1 && registered && !hasField(transformedClass, "late"))
+							failures.add("late transformer missing");
+
+						if (i != 0 && i != CLASSES - 1 && transformedClass != classFiles[i])
+							failures.add("untransformed class " + i + " was modified");
+
+						loaded.countDown();
+
+						if (i == CLASSES - 1 && registered)
+							loadedLate.countDown();
+					}
+				} catch (final Throwable e)
+				{
+					errors.add(e);
+				}
+			}));
+
+		for (final Thread thread : threads)
+			thread.start();
+
+		loaded.await();
+
+		transformer.addTransformer(target, new MarkerTransformer("late"));
+		stage.set(1);
+
+		loadedLate.await();
+		stage.set(2);
+
+		for (final Thread thread : threads)
+			thread.join();
+
+		for (final Throwable e : errors)
+			throw new AssertionError(e);
+
+		Assert.assertTrue(failures.toString(), failures.isEmpty());
+		Assert.assertTrue(hasField(transformer.transform(target, target, classFiles[CLASSES - 1]), "late"));
+	}
+
+	@Test
+	public void addTransformerCopiesArray()
+	{
+		final String name = "ocd.asmutil.test.Copied";
+		final IClassTransformer[] transformers = {new MarkerTransformer("kept")};
+
+		final DispatchClassTransformer transformer = new DispatchClassTransformer(LogManager.getLogger(), true)
+			.addTransformer(name, transformers);
+
+		transformers[0] = new MarkerTransformer("replaced");
+
+		final byte[] transformedClass = transformer.transform(name, name, generate(name));
+
+		Assert.assertTrue(hasField(transformedClass, "kept"));
+		Assert.assertFalse(hasField(transformedClass, "replaced"));
+	}
+
+	@Test
+	public void cacheHitsSkipParsing()
+	{
+		final String name = "ocd.asmutil.test.Cached";
+		final byte[] classFile = generate(name);
+
+		final MarkerTransformer marker = new MarkerTransformer("cached");
+		final MarkerTransformer skipped = new MarkerTransformer("skipped", false);
+
+		final DispatchClassTransformer transformer = new DispatchClassTransformer(LogManager.getLogger(), true)
+			.addTransformer(name, marker)
+			.addTransformer(name + "Skipped", skipped)
+			.setCache(new MemoryClassCache(1 << 20), "test");
+
+		final byte[] transformedClass = transformer.transform(name, name, classFile);
+		final byte[] cachedClass = transformer.transform(name, name, classFile);
+
+		Assert.assertTrue(hasField(cachedClass, "cached"));
+		Assert.assertArrayEquals(transformedClass, cachedClass);
+		Assert.assertEquals(1, marker.scans.get());
+
+		final byte[] skippedFile = generate(name + "Skipped");
+
+		Assert.assertSame(skippedFile, transformer.transform(name + "Skipped", name + "Skipped", skippedFile));
+		Assert.assertSame(skippedFile, transformer.transform(name + "Skipped", name + "Skipped", skippedFile));
+		Assert.assertEquals(1, skipped.scans.get());
+	}
+
+	private static byte[] generate(final String name)
+	{
+		final ClassWriter cw = new ClassWriter(0);
+
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name.replace('.', '/'), null, "java/lang/Object", null);
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
+	private static boolean hasField(final byte[] classFile, final String name)
+	{
+		final ClassNode classNode = new ClassNode();
+		new ClassReader(classFile).accept(classNode, 0);
+
+		for (final FieldNode fieldNode : classNode.fields)
+			if (fieldNode.name.equals(name))
+				return true;
+
+		return false;
+	}
+
+	private static class MarkerTransformer implements IClassTransformer
+	{
+		private final String field;
+		private final boolean matches;
+
+		final AtomicInteger scans = new AtomicInteger();
+
+		MarkerTransformer(final String field, final boolean matches)
+		{
+			this.field = field;
+			this.matches = matches;
+		}
+
+		MarkerTransformer(final String field)
+		{
+			this(field, true);
+		}
+
+		@Override
+		public boolean mayTransform(final ConstantPool cp)
+		{
+			this.scans.incrementAndGet();
+
+			return this.matches;
+		}
+
+		@Override
+		public ClassVisitor createClassVisitor(final Logger logger, final boolean verify, final int api, final ClassVisitor cv)
+		{
+			return new ClassVisitor(api, cv)
+			{
+				@Override
+				public void visitEnd()
+				{
+					this.cv.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, MarkerTransformer.this.field, "I", null, null).visitEnd();
+
+					super.visitEnd();
+				}
+			};
+		}
+
+		@Override
+		public void fingerprint(final Hasher hasher)
+		{
+			Fingerprints.putClass(hasher, this);
+			Fingerprints.putString(hasher, this.field);
+			hasher.putBoolean(this.matches);
+		}
+	}
+}
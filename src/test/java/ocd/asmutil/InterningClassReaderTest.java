@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public class InterningClassReaderTest
+{
+	@Test
+	public void symbolsAreSharedAcrossReaders()
+	{
+		final ClassNode first = read(new InterningClassReader(generate("ocd/asmutil/test/First")));
+		final ClassNode second = read(new InterningClassReader(generate("ocd/asmutil/test/Second")));
+
+		Assert.assertSame(first.superName, second.superName);
+		Assert.assertSame(first.fields.get(0).name, second.fields.get(0).name);
+		Assert.assertSame(first.fields.get(0).desc, second.fields.get(0).desc);
+		Assert.assertSame(first.methods.get(0).name, second.methods.get(0).name);
+		Assert.assertSame(first.methods.get(0).desc, second.methods.get(0).desc);
+
+		final MethodInsnNode firstCall = find(first.methods.get(0), MethodInsnNode.class);
+		final MethodInsnNode secondCall = find(second.methods.get(0), MethodInsnNode.class);
+
+		Assert.assertSame(firstCall.owner, secondCall.owner);
+		Assert.assertSame(firstCall.name, secondCall.name);
+		Assert.assertSame(firstCall.desc, secondCall.desc);
+
+		// Plain readers create new strings for every class
+		final ClassNode plain = read(new ClassReader(generate("ocd/asmutil/test/Plain")));
+
+		Assert.assertEquals(first.methods.get(0).name, plain.methods.get(0).name);
+		Assert.assertNotSame(first.methods.get(0).name, plain.methods.get(0).name);
+	}
+
+	@Test
+	public void constantsAreNotInterned()
+	{
+		final ClassNode first = read(new InterningClassReader(generate("ocd/asmutil/test/First")));
+		final ClassNode second = read(new InterningClassReader(generate("ocd/asmutil/test/Second")));
+
+		final Object firstConstant = find(first.methods.get(0), LdcInsnNode.class).cst;
+		final Object secondConstant = find(second.methods.get(0), LdcInsnNode.class).cst;
+
+		Assert.assertEquals(firstConstant, secondConstant);
+		Assert.assertNotSame(firstConstant, secondConstant);
+	}
+
+	private static byte[] generate(final String name)
+	{
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		cw.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "value", "I", null, null).visitEnd();
+
+		final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn("constant");
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "ocd/asmutil/test/Hooks", "hook", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
+	private static ClassNode read(final ClassReader cr)
+	{
+		final ClassNode classNode = new ClassNode();
+		cr.accept(classNode, 0);
+
+		return classNode;
+	}
+
+	private static <T extends AbstractInsnNode> T find(final MethodNode methodNode, final Class<T> type)
+	{
+		for (AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+			if (type.isInstance(insn))
+				return type.cast(insn);
+
+		throw new AssertionError("No " + type.getSimpleName() + " in " + methodNode.name);
+	}
+}
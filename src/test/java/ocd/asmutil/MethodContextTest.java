@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public class MethodContextTest
+{
+	@Test
+	public void insnIndexSeesEditsAfterMarkModified()
+	{
+		final MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "method", "()V", null, null);
+		methodNode.instructions.add(new InsnNode(Opcodes.NOP));
+		methodNode.instructions.add(new InsnNode(Opcodes.RETURN));
+
+		final MethodContext context = new MethodContext();
+
+		Assert.assertTrue(context.getInsnIndex(methodNode).getByName("target").isEmpty());
+
+		// Replacing keeps the instruction count, so only the reported edit can tell the index apart
+		methodNode.instructions.set(methodNode.instructions.getFirst(), new MethodInsnNode(Opcodes.INVOKESTATIC, "Owner", "target", "()V", false));
+		context.markModified();
+
+		Assert.assertEquals(1, context.getInsnIndex(methodNode).getByName("target").size());
+		Assert.assertTrue(context.getInsnIndex(methodNode).getByOpcode(Opcodes.NOP).isEmpty());
+	}
+
+	@Test
+	public void insnIndexIsReusedWithoutEdits()
+	{
+		final MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "method", "()V", null, null);
+		methodNode.instructions.add(new InsnNode(Opcodes.RETURN));
+
+		final MethodContext context = new MethodContext();
+
+		Assert.assertSame(context.getInsnIndex(methodNode), context.getInsnIndex(methodNode));
+	}
+}
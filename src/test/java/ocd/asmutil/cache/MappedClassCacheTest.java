@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.hash.HashCode;
+
+public class MappedClassCacheTest
+{
+	private static final long MAX_BYTES = 1 << 18;
+	private static final int THREADS = 4;
+	private static final int PUTS = 500;
+
+	@Test(timeout = 60000)
+	public void instancesOnSameFileShareTheLock() throws IOException, InterruptedException
+	{
+		final Path dir = Files.createTempDirectory("classcache");
+		final Path path = dir.resolve("classes.bin");
+
+		try
+		{
+			final MappedClassCache[] caches = {new MappedClassCache(path, MAX_BYTES), new MappedClassCache(path, MAX_BYTES)};
+
+			final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+			final List<Thread> threads = new ArrayList<>();
+
+			for (int t = 0; t < THREADS; ++t)
+			{
+				final MappedClassCache cache = caches[t % caches.length];
+				final int thread = t;
+
+				// Enough data to compact the store several times
+				threads.add(new Thread(() -> {
+					try
+					{
+						for (int i = 0; i < PUTS; ++i)
+						{
+							final String name = "ocd.asmutil.test.Cached" + thread + "_" + i;
+							final byte[] data = data(name);
+
+							cache.put(name, key(i), data);
+
+							final byte[] cached = cache.get(name, key(i));
+
+							if (cached != null && !Arrays.equals(data, cached))
+								throw new AssertionError("corrupted entry " + name);
+						}
+					} catch (final Throwable e)
+					{
+						errors.add(e);
+					}
+				}));
+			}
+
+			for (final Thread thread : threads)
+				thread.start();
+
+			for (final Thread thread : threads)
+				thread.join();
+
+			for (final Throwable e : errors)
+				throw new AssertionError(e);
+
+			final String name = "ocd.asmutil.test.Shared";
+			caches[0].put(name, key(0), data(name));
+
+			Assert.assertArrayEquals(data(name), caches[1].get(name, key(0)));
+		} finally
+		{
+			try (final Stream<Path> files = Files.list(dir))
+			{
+				for (final Path file : (Iterable<Path>) files::iterator)
+					Files.delete(file);
+			}
+
+			Files.delete(dir);
+		}
+	}
+
+	private static HashCode key(final int i)
+	{
+		return HashCode.fromLong(i * 0x9E3779B97F4A7C15L);
+	}
+
+	private static byte[] data(final String name)
+	{
+		final byte[] data = new byte[2048];
+		Arrays.fill(data, (byte) name.hashCode());
+
+		return data;
+	}
+}
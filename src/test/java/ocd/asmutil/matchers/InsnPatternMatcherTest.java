@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.matchers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public class InsnPatternMatcherTest
+{
+	private static final int A = Opcodes.ICONST_0;
+	private static final int B = Opcodes.ICONST_1;
+	private static final int C = Opcodes.POP;
+
+	@Test
+	public void matchesAreLeftmostAndDoNotOverlap()
+	{
+		Assert.assertEquals(Arrays.asList("0:0-1", "0:2-3"), match(method(A, A, A, A, A), InsnPattern.seq(InsnPattern.insn(A), InsnPattern.insn(A))));
+		Assert.assertEquals(Arrays.asList("0:1-2", "0:4-5"), match(method(C, A, B, A, A, B), InsnPattern.seq(InsnPattern.insn(A), InsnPattern.insn(B))));
+	}
+
+	@Test
+	public void earlierPatternsWinAtTheSameStart()
+	{
+		final MethodNode methodNode = method(A, B, A, C);
+
+		Assert.assertEquals(Arrays.asList("0:0-1", "1:2-2"), match(methodNode, InsnPattern.seq(InsnPattern.insn(A), InsnPattern.insn(B)), InsnPattern.insn(A)));
+		Assert.assertEquals(Arrays.asList("0:0-0", "0:2-2"), match(methodNode, InsnPattern.insn(A), InsnPattern.seq(InsnPattern.insn(A), InsnPattern.insn(B))));
+	}
+
+	@Test
+	public void earlierStartWinsOverPriority()
+	{
+		final InsnPattern late = InsnPattern.seq(InsnPattern.insn(B), InsnPattern.insn(C));
+		final InsnPattern early = InsnPattern.seq(InsnPattern.insn(A), InsnPattern.insn(B), InsnPattern.insn(C));
+
+		Assert.assertEquals(Arrays.asList("1:0-2"), match(method(A, B, C), late, early));
+	}
+
+	@Test
+	public void starIsGreedy()
+	{
+		Assert.assertEquals(Arrays.asList("0:0-3"), match(method(A, B, C, B), InsnPattern.seq(InsnPattern.insn(A), InsnPattern.star(InsnPattern.any()), InsnPattern.insn(B))));
+		Assert.assertEquals(Arrays.asList("0:0-2", "0:4-4"), match(method(A, A, A, B, A), InsnPattern.star(InsnPattern.insn(A))));
+	}
+
+	@Test
+	public void capturesRecordTheirSpan()
+	{
+		final MethodNode methodNode = method(A, A, C, A, B, C);
+		final List<AbstractInsnNode> insns = insns(methodNode);
+
+		final InsnPatternMatcher matcher = new InsnPatternMatcher(InsnPattern.seq(
+			InsnPattern.capture("x", InsnPattern.plus(InsnPattern.insn(A))),
+			InsnPattern.capture("y", InsnPattern.optional(InsnPattern.insn(B))),
+			InsnPattern.insn(C)
+		));
+		final List<InsnPatternMatcher.Match> matches = matcher.match(methodNode);
+
+		Assert.assertEquals(2, matches.size());
+
+		Assert.assertSame(insns.get(0), matches.get(0).getStart("x"));
+		Assert.assertSame(insns.get(1), matches.get(0).getEnd("x"));
+		Assert.assertNull(matches.get(0).getStart("y"));
+		Assert.assertNull(matches.get(0).getEnd("y"));
+
+		Assert.assertSame(insns.get(3), matches.get(1).getStart("x"));
+		Assert.assertSame(insns.get(3), matches.get(1).getEnd("x"));
+		Assert.assertSame(insns.get(4), matches.get(1).getStart("y"));
+		Assert.assertSame(insns.get(4), matches.get(1).getEnd("y"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownCapturesAreRejected()
+	{
+		new InsnPatternMatcher(InsnPattern.capture("x", InsnPattern.insn(A))).match(method(A)).get(0).getStart("y");
+	}
+
+	@Test
+	public void emptyMatchesAreDropped()
+	{
+		Assert.assertEquals(Arrays.asList(), match(method(B, B), InsnPattern.star(InsnPattern.insn(A))));
+		Assert.assertEquals(Arrays.asList("0:1-1"), match(method(B, A, B), InsnPattern.optional(InsnPattern.insn(A))));
+	}
+
+	@Test
+	public void labelsAreSkipped()
+	{
+		final MethodNode methodNode = method(A, B);
+		methodNode.instructions.insert(methodNode.instructions.getFirst(), new LabelNode());
+
+		Assert.assertEquals(Arrays.asList("0:0-1"), match(methodNode, InsnPattern.seq(InsnPattern.insn(A), InsnPattern.insn(B))));
+	}
+
+	private static MethodNode method(final int... opcodes)
+	{
+		final MethodNode methodNode = new MethodNode(Opcodes.ACC_STATIC, "method", "()V", null, null);
+
+		for (final int opcode : opcodes)
+			methodNode.instructions.add(new InsnNode(opcode));
+
+		return methodNode;
+	}
+
+	// Instructions the matcher sees, i.e. without labels
+	private static List<AbstractInsnNode> insns(final MethodNode methodNode)
+	{
+		final List<AbstractInsnNode> insns = new ArrayList<>();
+
+		for (AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext())
+			if (insn.getOpcode() >= 0)
+				insns.add(insn);
+
+		return insns;
+	}
+
+	private static List<String> match(final MethodNode methodNode, final InsnPattern... patterns)
+	{
+		final List<AbstractInsnNode> insns = insns(methodNode);
+		final List<String> matches = new ArrayList<>();
+
+		for (final InsnPatternMatcher.Match match : new InsnPatternMatcher(patterns).match(methodNode))
+			matches.add(match.pattern + ":" + insns.indexOf(match.start) + "-" + insns.indexOf(match.end));
+
+		return matches;
+	}
+}
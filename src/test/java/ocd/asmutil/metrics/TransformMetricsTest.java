@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2018 OverengineeredCodingDuo
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ocd.asmutil.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import ocd.asmutil.DispatchClassTransformer;
+import ocd.asmutil.MethodTransformer;
+
+public class TransformMetricsTest
+{
+	@Test
+	public void statsUseTheRegisteredClassName()
+	{
+		final String name = "ocd.asmutil.test.Metered";
+		final TransformMetrics metrics = new TransformMetrics();
+
+		final DispatchClassTransformer transformer = new DispatchClassTransformer(LogManager.getLogger(), true)
+			.addTransformer(name, new MethodTransformer().addTransformer("run", "()V", (className, methodNode, logger) -> methodNode))
+			.setMetrics(metrics);
+
+		transformer.transform(name, name, generate(name));
+
+		// Verification is recorded with the class, so a second name would show up as a second entry
+		Assert.assertEquals(Collections.singleton(name), metrics.getClassStats().keySet());
+		Assert.assertEquals(1, metrics.getTransformerStats().size());
+		Assert.assertTrue(metrics.getTransformerStats().keySet().iterator().next().startsWith(name + ".run()V "));
+	}
+
+	@Test
+	public void registerPublishesUnderTheGivenName() throws JMException
+	{
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName objectName = new TransformMetrics().register("test");
+
+		try
+		{
+			Assert.assertEquals(new ObjectName("ocd.asmutil:type=TransformMetrics,name=\"test\""), objectName);
+			Assert.assertTrue(server.isRegistered(objectName));
+		} finally
+		{
+			server.unregisterMBean(objectName);
+		}
+	}
+
+	private static byte[] generate(final String name)
+	{
+		final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name.replace('.', '/'), null, "java/lang/Object", null);
+
+		final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "run", "()V", null, null);
+		mv.visitCode();
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+}